@@ -0,0 +1,123 @@
+package learn.benchmark;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+//writes deterministic hosts, guests and reservations files in the same layout as ./data
+//usage: DataGenerator <directory> <rows>
+public class DataGenerator {
+
+    //reservations start somewhere in this many days after tomorrow, so every row stays bookable in the future
+    public static final int WINDOW_DAYS = 3650;
+
+    private static final String[] STATES = {"TX", "GA", "MN", "CA", "NY", "FL", "WA", "OR", "NV", "IL"};
+    private static final String[] CITIES = {"Amarillo", "Macon", "Duluth", "Fresno", "Albany", "Tampa", "Tacoma", "Salem", "Reno", "Peoria"};
+
+    private final Random random;
+
+    public DataGenerator(long seed) {
+        this.random = new Random(seed);
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path directory = Paths.get(args.length > 0 ? args[0] : "./data/generated");
+        int rows = args.length > 1 ? Integer.parseInt(args[1]) : 1000;
+
+        Files.createDirectories(directory.resolve("reservations"));
+        DataGenerator generator = new DataGenerator(42);
+        generator.writeHosts(directory.resolve("hosts.csv"), rows);
+        generator.writeGuests(directory.resolve("guests.csv"), rows);
+        generator.writeReservations(directory.resolve("reservations"), hostId(0), rows, rows);
+    }
+
+    public static String hostId(int index) {
+        return new UUID(0x5eed, index).toString();
+    }
+
+    public static String hostEmail(int index) {
+        return "host" + index + "@example.com";
+    }
+
+    public static String guestEmail(int index) {
+        return "guest" + index + "@example.com";
+    }
+
+    public void writeHosts(Path file, int rows) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("id,last_name,email,phone,address,city,state,postal_code,standard_rate,weekend_rate");
+            writer.newLine();
+
+            for (int i = 0; i < rows; i++) {
+                int place = random.nextInt(STATES.length);
+                BigDecimal standardRate = BigDecimal.valueOf(100 + random.nextInt(300));
+                BigDecimal weekendRate = standardRate.multiply(new BigDecimal("1.25"));
+
+                writer.write(hostId(i) + ",Host" + i + "," + hostEmail(i) + "," + phone(i) + ","
+                        + (i % 9000 + 1) + " Main Street," + CITIES[place] + "," + STATES[place] + ","
+                        + (10000 + random.nextInt(89999)) + "," + standardRate + "," + weekendRate + ",false");
+                writer.newLine();
+            }
+        }
+    }
+
+    public void writeGuests(Path file, int rows) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write("guest_id,first_name,last_name,email,phone,state");
+            writer.newLine();
+
+            for (int i = 0; i < rows; i++) {
+                writer.write((i + 1) + ",Guest,Number" + i + "," + guestEmail(i) + "," + phone(i) + ","
+                        + STATES[random.nextInt(STATES.length)] + ",false");
+                writer.newLine();
+            }
+        }
+    }
+
+    //one host's file with the given number of rows; stays may overlap, which the CSV format allows
+    public void writeReservations(Path directory, String hostId, int rows, int guestCount) throws IOException {
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+        try (BufferedWriter writer = Files.newBufferedWriter(directory.resolve(hostId + ".csv"), StandardCharsets.UTF_8)) {
+            writer.write("id,start_date,end_date,guest_id,total");
+            writer.newLine();
+
+            for (int i = 0; i < rows; i++) {
+                LocalDate start = tomorrow.plusDays(random.nextInt(WINDOW_DAYS));
+                int nights = 1 + random.nextInt(7);
+                writer.write((i + 1) + "," + start + "," + start.plusDays(nights) + ","
+                        + (1 + random.nextInt(guestCount)) + "," + (nights * 250) + ".00");
+                writer.newLine();
+            }
+        }
+    }
+
+    public static Path createTempDirectory() throws IOException {
+        Path directory = Files.createTempDirectory("benchmark-data");
+        Files.createDirectories(directory.resolve("reservations"));
+        return directory;
+    }
+
+    public static void deleteRecursively(Path directory) throws IOException {
+        if (directory == null || !Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : (Iterable<Path>) paths.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(path);
+            }
+        }
+    }
+
+    private static String phone(int index) {
+        return String.format("(%03d) %07d", 200 + index % 800, index % 10000000);
+    }
+}
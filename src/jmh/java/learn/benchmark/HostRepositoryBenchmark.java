@@ -0,0 +1,61 @@
+package learn.benchmark;
+
+import learn.models.Host;
+import learn.repository.DataAccessException;
+import learn.repository.HostFileRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HostRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    private Path directory;
+    private String filePath;
+    private HostFileRepository repository;
+    private Random random;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, DataAccessException {
+        directory = DataGenerator.createTempDirectory();
+        filePath = directory.resolve("hosts.csv").toString();
+        new DataGenerator(42).writeHosts(directory.resolve("hosts.csv"), rows);
+
+        repository = new HostFileRepository(filePath, hosts -> {});
+        repository.findAll();
+        random = new Random(7);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DataGenerator.deleteRecursively(directory);
+    }
+
+    //parses the whole file, as on start-up or after another process changed it
+    @Benchmark
+    public List<Host> findAllCold() throws DataAccessException {
+        return new HostFileRepository(filePath, hosts -> {}).findAll();
+    }
+
+    @Benchmark
+    public List<Host> findAllCached() throws DataAccessException {
+        return repository.findAll();
+    }
+
+    @Benchmark
+    public Host findByEmail() throws DataAccessException {
+        return repository.findByEmail(DataGenerator.hostEmail(random.nextInt(rows)));
+    }
+}
@@ -0,0 +1,73 @@
+package learn.benchmark;
+
+import learn.models.Guest;
+import learn.models.Host;
+import learn.repository.DataAccessException;
+import learn.repository.GuestFileRepository;
+import learn.repository.HostFileRepository;
+import learn.repository.convertToJSON.GuestToJSONFileRepository;
+import learn.repository.convertToJSON.HostToJSONFileRepository;
+import learn.repository.convertToJSON.ReservationToJSONFileRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JSONExportBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    private Path directory;
+    private List<Host> hosts;
+    private List<Guest> guests;
+    private HostToJSONFileRepository hostExport;
+    private GuestToJSONFileRepository guestExport;
+    private ReservationToJSONFileRepository reservationExport;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, DataAccessException {
+        directory = DataGenerator.createTempDirectory();
+        DataGenerator generator = new DataGenerator(42);
+        generator.writeHosts(directory.resolve("hosts.csv"), rows);
+        generator.writeGuests(directory.resolve("guests.csv"), rows);
+        generator.writeReservations(directory.resolve("reservations"), DataGenerator.hostId(0), rows, rows);
+
+        hosts = new HostFileRepository(directory.resolve("hosts.csv").toString(), h -> {}).findAll();
+        guests = new GuestFileRepository(directory.resolve("guests.csv").toString(), g -> {}).findAll();
+
+        hostExport = new HostToJSONFileRepository(directory.resolve("hosts.json").toString());
+        guestExport = new GuestToJSONFileRepository(directory.resolve("guests.json").toString());
+        reservationExport = new ReservationToJSONFileRepository(directory.resolve("reservations.json").toString(),
+                directory.resolve("reservations").toString());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DataGenerator.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void writeHostsToJSON() throws DataAccessException {
+        hostExport.writeToJSON(hosts);
+    }
+
+    @Benchmark
+    public void writeGuestsToJSON() throws DataAccessException {
+        guestExport.writeToJSON(guests);
+    }
+
+    //full rescan of the reservations directory
+    @Benchmark
+    public void writeReservationsToJSON() throws DataAccessException {
+        reservationExport.writeToJSON(directory.resolve("reservations").toFile());
+    }
+}
@@ -0,0 +1,21 @@
+package learn.benchmark;
+
+import learn.repository.convertToJSON.ReservationToJSONRepository;
+
+import java.io.File;
+
+class NoOpReservationExport implements ReservationToJSONRepository {
+
+    @Override
+    public void writeToJSON(File directory) {
+    }
+
+    @Override
+    public void writeHostToJSON(String hostId) {
+    }
+
+    @Override
+    public String getFileNameNoExtension(String fileName) {
+        return fileName;
+    }
+}
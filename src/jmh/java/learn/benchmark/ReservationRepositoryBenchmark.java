@@ -0,0 +1,68 @@
+package learn.benchmark;
+
+import learn.models.Guest;
+import learn.models.Host;
+import learn.models.Reservation;
+import learn.repository.DataAccessException;
+import learn.repository.ReservationFileRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationRepositoryBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    private Path directory;
+    private ReservationFileRepository repository;
+    private String hostId;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = DataGenerator.createTempDirectory();
+        hostId = DataGenerator.hostId(0);
+        new DataGenerator(42).writeReservations(directory.resolve("reservations"), hostId, rows, rows);
+
+        //exports are measured on their own in JSONExportBenchmark
+        repository = new ReservationFileRepository(directory.resolve("reservations").toString(),
+                new NoOpReservationExport());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DataGenerator.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<Reservation> findById() throws DataAccessException {
+        return repository.findById(hostId);
+    }
+
+    //the file grows by one row per call, which append should not notice
+    @Benchmark
+    public Reservation add() throws DataAccessException {
+        Reservation reservation = new Reservation();
+        Host host = new Host();
+        host.setId(hostId);
+        reservation.setHost(host);
+        Guest guest = new Guest();
+        guest.setId("1");
+        reservation.setGuest(guest);
+        reservation.setStartDate(LocalDate.now().plusDays(DataGenerator.WINDOW_DAYS + 10));
+        reservation.setEndDate(reservation.getStartDate().plusDays(3));
+        reservation.setTotal(new BigDecimal("750.00"));
+        return repository.add(reservation);
+    }
+}
@@ -0,0 +1,92 @@
+package learn.benchmark;
+
+import learn.domain.ReservationService;
+import learn.domain.Result;
+import learn.models.Guest;
+import learn.models.Host;
+import learn.models.Reservation;
+import learn.repository.DataAccessException;
+import learn.repository.GuestFileRepository;
+import learn.repository.HostFileRepository;
+import learn.repository.ReservationFileRepository;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReservationServiceBenchmark {
+
+    //rows in each of hosts, guests and the benchmarked host's reservations
+    @Param({"1000", "100000", "1000000"})
+    int rows;
+
+    private Path directory;
+    private ReservationService service;
+    private Reservation pricedStay;
+    private Reservation freeStay;
+    private Reservation bookedStay;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException, DataAccessException {
+        directory = DataGenerator.createTempDirectory();
+        DataGenerator generator = new DataGenerator(42);
+        generator.writeHosts(directory.resolve("hosts.csv"), rows);
+        generator.writeGuests(directory.resolve("guests.csv"), rows);
+        generator.writeReservations(directory.resolve("reservations"), DataGenerator.hostId(0), rows, rows);
+
+        HostFileRepository hostRepository = new HostFileRepository(directory.resolve("hosts.csv").toString(), hosts -> {});
+        GuestFileRepository guestRepository = new GuestFileRepository(directory.resolve("guests.csv").toString(), guests -> {});
+        ReservationFileRepository reservationRepository = new ReservationFileRepository(
+                directory.resolve("reservations").toString(), new NoOpReservationExport());
+        service = new ReservationService(reservationRepository, guestRepository, hostRepository);
+
+        Host host = hostRepository.findById(DataGenerator.hostId(0));
+        Guest guest = guestRepository.findByEmail(DataGenerator.guestEmail(0));
+        LocalDate tomorrow = LocalDate.now().plusDays(1);
+
+        pricedStay = makeReservation(host, guest, tomorrow.plusDays(30), 7);
+        freeStay = makeReservation(host, guest, tomorrow.plusDays(DataGenerator.WINDOW_DAYS + 10), 7);
+        bookedStay = makeReservation(host, guest, tomorrow.plusDays(DataGenerator.WINDOW_DAYS / 2), 7);
+
+        //builds the host's interval index outside the measurement
+        service.isReservationAvailable(freeStay);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        DataGenerator.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public BigDecimal getPrice() {
+        return service.getPrice(pricedStay);
+    }
+
+    @Benchmark
+    public Result<Reservation> isReservationAvailableFree() throws DataAccessException {
+        return service.isReservationAvailable(freeStay);
+    }
+
+    @Benchmark
+    public Result<Reservation> isReservationAvailableBooked() throws DataAccessException {
+        return service.isReservationAvailable(bookedStay);
+    }
+
+    private Reservation makeReservation(Host host, Guest guest, LocalDate start, int nights) {
+        Reservation reservation = new Reservation();
+        reservation.setHost(host);
+        reservation.setGuest(guest);
+        reservation.setStartDate(start);
+        reservation.setEndDate(start.plusDays(nights));
+        return reservation;
+    }
+}
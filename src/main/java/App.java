@@ -1,14 +1,90 @@
+import learn.domain.Result;
+import learn.domain.reporting.ReportService;
+import learn.domain.reporting.RevenueReport;
+import learn.repository.DataAccessException;
+import learn.ui.ApiServer;
 import learn.ui.Controller;
+import learn.ui.View;
 
-import org.springframework.context.ApplicationContext;
 import org.springframework.context.support.ClassPathXmlApplicationContext;
 
+import java.io.IOException;
+import java.time.LocalDate;
+
 public class App {
-    public static void main(String[] args) {
-        ApplicationContext container = new ClassPathXmlApplicationContext("dependency-configuration.xml");
+    public static void main(String[] args) throws IOException {
+        ClassPathXmlApplicationContext container = new ClassPathXmlApplicationContext("dependency-configuration.xml");
+        //closing the context flushes pending JSON exports, the hook covers Ctrl+C
+        container.registerShutdownHook();
+
+        if (hasFlag(args, "--server")) {
+            //runs until the process is stopped, the shutdown hook stops the server and flushes the files
+            ApiServer server = container.getBean(ApiServer.class);
+            String port = getOption(args, "--port=");
+            if (port != null) {
+                server.setPort(Integer.parseInt(port));
+            }
+            String threads = getOption(args, "--threads=");
+            if (threads != null) {
+                server.setWorkerThreads(Integer.parseInt(threads));
+            }
+            String keepAlive = getOption(args, "--keep-alive=");
+            if (keepAlive != null) {
+                server.setKeepAliveSeconds(Integer.parseInt(keepAlive));
+            }
+            server.start();
+            System.out.println("Listening on port " + server.getPort());
+            return;
+        }
+
+        if (hasFlag(args, "--report")) {
+            printReport(container, args);
+            container.close();
+            return;
+        }
+
         Controller controller = container.getBean(Controller.class);
 
         controller.run();
+        container.close();
     }
-}
 
+    //App --report [--from=YYYY-MM-DD] [--to=YYYY-MM-DD] [--top=50], defaults to the current month
+    private static void printReport(ClassPathXmlApplicationContext container, String[] args) {
+        View view = container.getBean(View.class);
+        String from = getOption(args, "--from=");
+        String to = getOption(args, "--to=");
+        String top = getOption(args, "--top=");
+        LocalDate fromDate = from == null ? LocalDate.now().withDayOfMonth(1) : LocalDate.parse(from);
+        LocalDate toDate = to == null ? fromDate.plusMonths(1) : LocalDate.parse(to);
+
+        try {
+            Result<RevenueReport> result = container.getBean(ReportService.class).buildReport(fromDate, toDate);
+            if (result.isSuccess()) {
+                view.displayReport(result.getPayload(), top == null ? 50 : Integer.parseInt(top));
+            } else {
+                view.displayStatus(false, result.getMessages());
+            }
+        } catch (DataAccessException ex) {
+            view.displayException(ex);
+        }
+    }
+
+    private static boolean hasFlag(String[] args, String flag) {
+        for (String arg : args) {
+            if (arg.equals(flag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getOption(String[] args, String prefix) {
+        for (String arg : args) {
+            if (arg.startsWith(prefix)) {
+                return arg.substring(prefix.length());
+            }
+        }
+        return null;
+    }
+}
@@ -107,13 +107,6 @@ public class GuestService implements UserService {
     }
 
     private Result<User> validateGuest(User user) {
-        Result<User> result = validation.validateFullName(user);
-        if (!result.isSuccess()) {
-            return result;
-        }
-
-        result = validation.validateFullName(user);
-
-        return result;
+        return validation.validateFullName(user);
     }
 }
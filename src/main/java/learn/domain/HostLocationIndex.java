@@ -0,0 +1,94 @@
+package learn.domain;
+
+import learn.models.Host;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+//hosts by state, then by city or postal code prefix, so a search only looks at hosts in the right place
+public class HostLocationIndex {
+
+    private static class StateHosts {
+        private final List<Host> hosts = new ArrayList<>();
+        //lower-cased city -> hosts
+        private final Map<String, List<Host>> byCity = new HashMap<>();
+        //hosts sorted by postal code, with the codes alongside for binary search
+        private Host[] byPostalCode;
+        private String[] postalCodes;
+    }
+
+    //upper-cased state -> its hosts
+    private final Map<String, StateHosts> states = new HashMap<>();
+
+    public HostLocationIndex(List<Host> hosts) {
+        for (Host host : hosts) {
+            if (host.getState() == null) {
+                continue;
+            }
+            StateHosts state = states.computeIfAbsent(normalizeState(host.getState()), s -> new StateHosts());
+            state.hosts.add(host);
+            if (host.getCity() != null) {
+                state.byCity.computeIfAbsent(normalizeCity(host.getCity()), c -> new ArrayList<>()).add(host);
+            }
+        }
+
+        for (StateHosts state : states.values()) {
+            state.byPostalCode = state.hosts.stream()
+                    .filter(h -> h.getPostalCode() != null)
+                    .sorted(Comparator.comparing(Host::getPostalCode))
+                    .toArray(Host[]::new);
+            state.postalCodes = Arrays.stream(state.byPostalCode).map(Host::getPostalCode).toArray(String[]::new);
+        }
+    }
+
+    //location is optional; one starting with a digit is a postal code prefix, anything else a whole city name
+    //the lists are read-only, state and city matches are views of the index's own lists
+    public List<Host> find(String state, String location) {
+        StateHosts stateHosts = state == null ? null : states.get(normalizeState(state));
+        if (stateHosts == null) {
+            return List.of();
+        }
+
+        if (location == null || location.isBlank()) {
+            return Collections.unmodifiableList(stateHosts.hosts);
+        }
+
+        String trimmed = location.trim();
+        if (Character.isDigit(trimmed.charAt(0))) {
+            return Collections.unmodifiableList(findByPostalPrefix(stateHosts, trimmed));
+        }
+        return Collections.unmodifiableList(stateHosts.byCity.getOrDefault(normalizeCity(trimmed), List.of()));
+    }
+
+    private List<Host> findByPostalPrefix(StateHosts stateHosts, String prefix) {
+        int first = Arrays.binarySearch(stateHosts.postalCodes, prefix);
+        if (first < 0) {
+            first = -first - 1;
+        } else {
+            //step back over equal codes, binarySearch may land on any of them
+            while (first > 0 && stateHosts.postalCodes[first - 1].equals(prefix)) {
+                first--;
+            }
+        }
+
+        List<Host> result = new ArrayList<>();
+        for (int i = first; i < stateHosts.postalCodes.length && stateHosts.postalCodes[i].startsWith(prefix); i++) {
+            result.add(stateHosts.byPostalCode[i]);
+        }
+        return result;
+    }
+
+    private static String normalizeState(String state) {
+        return state.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private static String normalizeCity(String city) {
+        return city.trim().toLowerCase(Locale.ROOT);
+    }
+}
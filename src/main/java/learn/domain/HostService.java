@@ -50,6 +50,7 @@ public class HostService implements UserService {
         User existingHost = repository.findByEmail(host.getEmail());
         if (existingHost != null) {
             result.addErrorMessage("User with this email already exists.");
+            return result;
         }
 
         host = repository.add(host);
@@ -0,0 +1,122 @@
+package learn.domain;
+
+import learn.models.Reservation;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//one host's bookings as half-open [start, end) epoch-day ranges, sorted by start
+public class ReservationIntervalIndex {
+
+    private long[] starts;
+    private long[] ends;
+    private int[] reservationIds;
+    //maxEnds[i] is the latest end among ranges 0..i, which lets a lookup stop walking left early
+    private long[] maxEnds;
+    private int size;
+
+    public ReservationIntervalIndex(List<Reservation> reservations) {
+        int capacity = Math.max(8, reservations.size());
+        starts = new long[capacity];
+        ends = new long[capacity];
+        reservationIds = new int[capacity];
+        maxEnds = new long[capacity];
+
+        List<Reservation> sorted = reservations.stream()
+                .filter(r -> r.getStartDate() != null && r.getEndDate() != null)
+                .sorted(Comparator.comparing(Reservation::getStartDate))
+                .collect(Collectors.toList());
+
+        for (Reservation r : sorted) {
+            starts[size] = r.getStartDate().toEpochDay();
+            ends[size] = r.getEndDate().toEpochDay();
+            reservationIds[size] = r.getReservationId();
+            size++;
+        }
+        updateMaxEnds(0);
+    }
+
+    public synchronized boolean overlaps(LocalDate startDate, LocalDate endDate, int ignoredReservationId) {
+        long start = startDate.toEpochDay();
+        long end = endDate.toEpochDay();
+
+        //every range at or after this position starts on or after the requested end
+        int i = firstStartAtOrAfter(end) - 1;
+        for (; i >= 0 && maxEnds[i] > start; i--) {
+            if (ends[i] > start && reservationIds[i] != ignoredReservationId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public synchronized void add(Reservation reservation) {
+        if (reservation.getStartDate() == null || reservation.getEndDate() == null) {
+            return;
+        }
+        if (size == starts.length) {
+            int capacity = size * 2;
+            starts = Arrays.copyOf(starts, capacity);
+            ends = Arrays.copyOf(ends, capacity);
+            reservationIds = Arrays.copyOf(reservationIds, capacity);
+            maxEnds = Arrays.copyOf(maxEnds, capacity);
+        }
+
+        long start = reservation.getStartDate().toEpochDay();
+        int position = firstStartAtOrAfter(start);
+        System.arraycopy(starts, position, starts, position + 1, size - position);
+        System.arraycopy(ends, position, ends, position + 1, size - position);
+        System.arraycopy(reservationIds, position, reservationIds, position + 1, size - position);
+
+        starts[position] = start;
+        ends[position] = reservation.getEndDate().toEpochDay();
+        reservationIds[position] = reservation.getReservationId();
+        size++;
+        updateMaxEnds(position);
+    }
+
+    public synchronized void remove(int reservationId) {
+        for (int i = 0; i < size; i++) {
+            if (reservationIds[i] == reservationId) {
+                System.arraycopy(starts, i + 1, starts, i, size - i - 1);
+                System.arraycopy(ends, i + 1, ends, i, size - i - 1);
+                System.arraycopy(reservationIds, i + 1, reservationIds, i, size - i - 1);
+                size--;
+                updateMaxEnds(i);
+                return;
+            }
+        }
+    }
+
+    public synchronized void update(Reservation reservation) {
+        remove(reservation.getReservationId());
+        add(reservation);
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private int firstStartAtOrAfter(long day) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (starts[middle] < day) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private void updateMaxEnds(int from) {
+        for (int i = from; i < size; i++) {
+            maxEnds[i] = i == 0 ? ends[i] : Math.max(maxEnds[i - 1], ends[i]);
+        }
+    }
+}
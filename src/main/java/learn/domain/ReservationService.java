@@ -1,5 +1,6 @@
 package learn.domain;
 
+import learn.domain.pricing.PricingEngine;
 import learn.models.Guest;
 import learn.models.Host;
 import learn.models.Reservation;
@@ -7,15 +8,26 @@ import learn.models.User;
 import learn.repository.DataAccessException;
 import learn.repository.GuestRepository;
 import learn.repository.HostRepository;
+import learn.repository.OccupancyCalendar;
+import learn.repository.ReservationImportFileRepository;
 import learn.repository.ReservationRepository;
 
 import java.math.BigDecimal;
-import java.time.DayOfWeek;
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RecursiveAction;
 import java.util.stream.Collectors;
 
 public class ReservationService {
@@ -23,24 +35,41 @@ public class ReservationService {
     private final ReservationRepository reservationRepository;
     private final GuestRepository guestRepository;
     private final HostRepository hostRepository;
+    private final PricingEngine pricingEngine;
+    private final ReservationImportFileRepository importRepository;
+    //the ignored id for a booking that isn't saved yet; real rows, legacy 0 ids included, never match it
+    private static final int NO_RESERVATION = -1;
+
+    //host id -> booked ranges with the repository version they were read at, rebuilt when the version moves;
+    //a repository that can't report versions has its index kept in step with the writes made through this service
+    private final Map<String, IndexEntry> intervalIndexes = new ConcurrentHashMap<>();
+    //host id -> lock held across a booking's availability check and its write
+    private final Map<String, Object> hostLocks = new ConcurrentHashMap<>();
+    private HostLocationIndex locationIndex;
+    private long locationIndexVersion;
 
     public ReservationService(ReservationRepository reservationRepository, GuestRepository guestRepository, HostRepository hostRepository) {
+        this(reservationRepository, guestRepository, hostRepository, new PricingEngine());
+    }
+
+    public ReservationService(ReservationRepository reservationRepository, GuestRepository guestRepository,
+                              HostRepository hostRepository, PricingEngine pricingEngine) {
+        this(reservationRepository, guestRepository, hostRepository, pricingEngine,
+                new ReservationImportFileRepository());
+    }
+
+    public ReservationService(ReservationRepository reservationRepository, GuestRepository guestRepository,
+                              HostRepository hostRepository, PricingEngine pricingEngine,
+                              ReservationImportFileRepository importRepository) {
         this.reservationRepository = reservationRepository;
         this.guestRepository = guestRepository;
         this.hostRepository = hostRepository;
+        this.pricingEngine = pricingEngine;
+        this.importRepository = importRepository;
     }
 
     public List<Reservation> findById(String id) throws DataAccessException {
-        List<Guest> all = guestRepository.findAll();
-        Map<String, Guest> guestMap = new HashMap<>();
-        for (Guest g : all) {
-            guestMap.put(g.getId(), g);
-        }
-
-        Host host = hostRepository.findAll().stream()
-                .filter(i -> i.getId().equalsIgnoreCase(id))
-                .findFirst().orElse(null);
-
+        Host host = hostRepository.findById(id);
         if (host == null) {
             return null;
         }
@@ -54,7 +83,7 @@ public class ReservationService {
         }
 
         for (Reservation r : result) {
-            r.setGuest(guestMap.get(r.getGuest().getId()));
+            r.setGuest(guestRepository.findById(r.getGuest().getId()));
         }
         return result;
     }
@@ -87,7 +116,19 @@ public class ReservationService {
         return reservation;
     }
 
+    //checks a saved reservation's new dates, its own nights don't count against it whatever its id
     public Result<Reservation> isReservationAvailable(Reservation reservation) throws DataAccessException {
+        return isReservationAvailable(reservation,
+                reservation == null ? NO_RESERVATION : reservation.getReservationId());
+    }
+
+    //checks a booking that isn't saved yet against every row, legacy rows with id 0 included
+    public Result<Reservation> isNewReservationAvailable(Reservation reservation) throws DataAccessException {
+        return isReservationAvailable(reservation, NO_RESERVATION);
+    }
+
+    private Result<Reservation> isReservationAvailable(Reservation reservation, int ignoredReservationId)
+            throws DataAccessException {
         Result<Reservation> result = validateFields(reservation);
         if (!result.isSuccess()) {
             return result;
@@ -98,7 +139,13 @@ public class ReservationService {
             return result;
         }
 
-        result = validateIsNotAlreadyBooked(reservation);
+        String stayError = pricingEngine.validateStay(reservation.getHost(), reservation.getStartDate(), reservation.getEndDate());
+        if (stayError != null) {
+            result.addErrorMessage(stayError);
+            return result;
+        }
+
+        result = validateIsNotAlreadyBooked(reservation, ignoredReservationId);
         if (!result.isSuccess()) {
             return result;
         }
@@ -110,7 +157,27 @@ public class ReservationService {
     }
 
     public Result<Reservation> addReservation(Reservation reservation) throws DataAccessException {
-        Result<Reservation> result = isReservationAvailable(reservation);
+        if (!hasHostId(reservation)) {
+            return add(reservation);
+        }
+        //the availability check and the write happen as one step per host, so two concurrent bookings
+        //for the same dates can't both pass the check
+        synchronized (getHostLock(reservation.getHost().getId())) {
+            return add(reservation);
+        }
+    }
+
+    public Result<Reservation> updateReservation(Reservation reservation) throws DataAccessException {
+        if (!hasHostId(reservation)) {
+            return update(reservation);
+        }
+        synchronized (getHostLock(reservation.getHost().getId())) {
+            return update(reservation);
+        }
+    }
+
+    private Result<Reservation> add(Reservation reservation) throws DataAccessException {
+        Result<Reservation> result = isNewReservationAvailable(reservation);
         if (!result.isSuccess()) {
             return result;
         }
@@ -128,11 +195,15 @@ public class ReservationService {
             return result;
         }
 
+        String hostId = reservation.getHost().getId();
+        if (!dropIntervalIndex(hostId)) {
+            getIntervalIndex(hostId).add(reservation);
+        }
         result.setPayload(reservation);
         return result;
     }
 
-    public Result<Reservation> updateReservation(Reservation reservation) throws DataAccessException {
+    private Result<Reservation> update(Reservation reservation) throws DataAccessException {
         Result<Reservation> result = isReservationAvailable(reservation);
         if (!result.isSuccess()) {
             return result;
@@ -141,6 +212,8 @@ public class ReservationService {
         boolean isSuccess = reservationRepository.update(reservation);
         if (!isSuccess) {
             result.addErrorMessage("Could not update reservation.");
+        } else if (!dropIntervalIndex(reservation.getHost().getId())) {
+            getIntervalIndex(reservation.getHost().getId()).update(reservation);
         }
 
         result.setPayload(reservation);
@@ -155,26 +228,112 @@ public class ReservationService {
         boolean isSuccess = reservationRepository.deleteById(hostId, reservationId);
         if (!isSuccess) {
             result.addErrorMessage("Could not delete reservation.");
+        } else if (!dropIntervalIndex(hostId)) {
+            getIntervalIndex(hostId).remove(reservationId);
         }
         return result;
     }
 
-    public BigDecimal getPrice(Reservation reservation) {
-        BigDecimal total = new BigDecimal("0.00");
-        LocalDate startDate = reservation.getStartDate();
-        LocalDate endDate = reservation.getEndDate();
-        BigDecimal standard_rate = reservation.getHost().getRates().get(0);
-        BigDecimal weekend_rate = reservation.getHost().getRates().get(1);
-
-        while (!startDate.isAfter(endDate)) {
-            if (startDate.getDayOfWeek() == DayOfWeek.FRIDAY || startDate.getDayOfWeek() == DayOfWeek.SATURDAY) {
-                total = total.add(weekend_rate);
-            } else {
-                total = total.add(standard_rate);
+    //free hosts in a state, optionally one city or postal code prefix, as unsaved quotes ordered by price
+    //location is narrowed through the host index first, then the remaining hosts are checked in parallel
+    public Result<List<Reservation>> searchAvailability(String state, String location, LocalDate startDate,
+                                                        LocalDate endDate) throws DataAccessException {
+        Result<List<Reservation>> result = new Result<>();
+        if (state == null || state.isBlank()) {
+            result.addErrorMessage("State is required.");
+        }
+        if (startDate == null || endDate == null) {
+            result.addErrorMessage("Dates cannot be null.");
+        }
+        if (!result.isSuccess()) {
+            return result;
+        }
+
+        Reservation stay = new Reservation(null, null, startDate, endDate);
+        for (String message : validateDates(stay).getMessages()) {
+            result.addErrorMessage(message);
+        }
+        if (!result.isSuccess()) {
+            return result;
+        }
+
+        List<Host> candidates = getLocationIndex().find(state, location);
+        Reservation[] quotes = new Reservation[candidates.size()];
+        DataAccessException[] errors = new DataAccessException[candidates.size()];
+        if (!candidates.isEmpty()) {
+            ForkJoinPool.commonPool().invoke(new AvailabilityTask(candidates, startDate, endDate, quotes, errors,
+                    0, candidates.size()));
+        }
+        for (DataAccessException error : errors) {
+            if (error != null) {
+                throw error;
+            }
+        }
+
+        List<Reservation> available = new ArrayList<>();
+        for (Reservation quote : quotes) {
+            if (quote != null) {
+                available.add(quote);
+            }
+        }
+        available.sort(Comparator.comparing(Reservation::getTotal)
+                .thenComparing(r -> r.getHost().getEmail(), Comparator.nullsLast(Comparator.naturalOrder())));
+        result.setPayload(available);
+        return result;
+    }
+
+    public Result<List<Reservation>> importReservations(String filePath) throws DataAccessException {
+        return importReservations(importRepository.findAll(filePath));
+    }
+
+    //validates and prices each host's rows on its own thread, writes each host's file once and exports once at the end
+    //valid rows are imported even when others are rejected, each rejected row adds a "Row n: ..." message
+    public Result<List<Reservation>> importReservations(List<Reservation> reservations) throws DataAccessException {
+        Result<List<Reservation>> result = new Result<>();
+        String[] errors = new String[reservations.size()];
+        Map<String, List<Integer>> rowsByHost = groupByHost(reservations, errors);
+
+        List<Callable<List<Reservation>>> tasks = new ArrayList<>();
+        for (Map.Entry<String, List<Integer>> entry : rowsByHost.entrySet()) {
+            tasks.add(() -> importHost(entry.getKey(), reservations, entry.getValue(), errors));
+        }
+
+        List<Reservation> imported = new ArrayList<>();
+        if (!tasks.isEmpty()) {
+            ExecutorService pool = Executors.newFixedThreadPool(
+                    Math.min(tasks.size(), Runtime.getRuntime().availableProcessors()));
+            try {
+                for (Future<List<Reservation>> future : pool.invokeAll(tasks)) {
+                    imported.addAll(future.get());
+                }
+            } catch (ExecutionException ex) {
+                if (ex.getCause() instanceof DataAccessException) {
+                    throw (DataAccessException) ex.getCause();
+                }
+                throw new DataAccessException(ex.getCause().getMessage());
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new DataAccessException("Import was interrupted.");
+            } finally {
+                pool.shutdown();
             }
-            startDate = startDate.plusDays(1);
         }
-        return total;
+
+        if (!imported.isEmpty()) {
+            reservationRepository.exportAll();
+        }
+
+        for (int i = 0; i < errors.length; i++) {
+            if (errors[i] != null) {
+                result.addErrorMessage("Row " + (i + 1) + ": " + errors[i]);
+            }
+        }
+        result.setPayload(imported);
+        return result;
+    }
+
+    public BigDecimal getPrice(Reservation reservation) {
+        return pricingEngine.quote(reservation.getHost(), reservation.getStartDate(), reservation.getEndDate());
     }
 
     private Result<Reservation> validateFields(Reservation reservation) {
@@ -214,33 +373,218 @@ public class ReservationService {
         return result;
     }
 
-    private Result<Reservation> validateIsNotAlreadyBooked(Reservation reservation) throws DataAccessException {
+    private Result<Reservation> validateIsNotAlreadyBooked(Reservation reservation, int ignoredReservationId)
+            throws DataAccessException {
         Result<Reservation> result = new Result<>();
 
-        List<Reservation> reservations = reservationRepository.findById(reservation.getHost().getId());
+        if (isBooked(reservation.getHost().getId(), reservation.getStartDate(), reservation.getEndDate(),
+                ignoredReservationId)) {
+            result.addErrorMessage("Pre-existing reservation");
+        }
 
-        List<LocalDate> bookedDates = new ArrayList<>();
-        for (Reservation r : reservations) {
-            if (r.getReservationId() == reservation.getReservationId()) {
+        return result;
+    }
+
+    //swaps the email-only hosts and guests of imported rows for the stored ones, grouping row numbers by host
+    private Map<String, List<Integer>> groupByHost(List<Reservation> reservations, String[] errors)
+            throws DataAccessException {
+        Map<String, Host> hosts = new HashMap<>();
+        Map<String, Guest> guests = new HashMap<>();
+        Map<String, List<Integer>> rowsByHost = new LinkedHashMap<>();
+
+        for (int i = 0; i < reservations.size(); i++) {
+            Reservation reservation = reservations.get(i);
+            Result<Reservation> result = validateFields(reservation);
+            if (!result.isSuccess()) {
+                errors[i] = String.join(" ", result.getMessages());
                 continue;
             }
 
-            if (r.getStartDate().equals(reservation.getStartDate()) || r.getEndDate().equals(reservation.getEndDate())) {
-                result.addErrorMessage("Pre-existing reservation");
-                return result;
+            String hostEmail = reservation.getHost().getEmail();
+            Host host = hostEmail == null ? null : hosts.get(hostEmail);
+            if (host == null && hostEmail != null) {
+                host = hostRepository.findByEmail(hostEmail);
+                if (host != null) {
+                    hosts.put(hostEmail, host);
+                }
+            }
+            if (host == null) {
+                errors[i] = "Host not found.";
+                continue;
             }
 
-            LocalDate startDate = r.getStartDate().plusDays(1);
-            while (startDate.isBefore(r.getEndDate())) {
-                bookedDates.add(startDate);
-                startDate = startDate.plusDays(1);
+            String guestEmail = reservation.getGuest().getEmail();
+            Guest guest = guestEmail == null ? null : guests.get(guestEmail);
+            if (guest == null && guestEmail != null) {
+                guest = guestRepository.findByEmail(guestEmail);
+                if (guest != null) {
+                    guests.put(guestEmail, guest);
+                }
+            }
+            if (guest == null) {
+                errors[i] = "Guest not found.";
+                continue;
             }
+
+            reservation.setHost(host);
+            reservation.setGuest(guest);
+            rowsByHost.computeIfAbsent(host.getId(), id -> new ArrayList<>()).add(i);
         }
+        return rowsByHost;
+    }
 
-        if (bookedDates.contains(reservation.getStartDate()) || bookedDates.contains(reservation.getEndDate())) {
-            result.addErrorMessage("Pre-existing Booking");
+    //rows are checked against the host's bookings and against the rows accepted before them in the same import
+    private List<Reservation> importHost(String hostId, List<Reservation> reservations, List<Integer> rows,
+                                         String[] errors) throws DataAccessException {
+        synchronized (getHostLock(hostId)) {
+            ReservationIntervalIndex imported = new ReservationIntervalIndex(new ArrayList<>());
+            List<Reservation> accepted = new ArrayList<>();
+            for (int row : rows) {
+                Reservation reservation = reservations.get(row);
+                Result<Reservation> result = isNewReservationAvailable(reservation);
+                if (result.isSuccess() && reservation.getReservationId() != 0) {
+                    result.addErrorMessage("Cannot set reservation Id.");
+                }
+                //none of the imported rows have an id yet, so none of them may be ignored
+                if (result.isSuccess()
+                        && imported.overlaps(reservation.getStartDate(), reservation.getEndDate(), NO_RESERVATION)) {
+                    result.addErrorMessage("Overlaps an earlier row in the import.");
+                }
+
+                if (!result.isSuccess()) {
+                    errors[row] = String.join(" ", result.getMessages());
+                    continue;
+                }
+                imported.add(reservation);
+                accepted.add(reservation);
+            }
+
+            List<Reservation> added = reservationRepository.addAll(hostId, accepted);
+            if (!added.isEmpty() && !dropIntervalIndex(hostId)) {
+                ReservationIntervalIndex index = getIntervalIndex(hostId);
+                for (Reservation reservation : added) {
+                    index.add(reservation);
+                }
+            }
+            return added;
+        }
+    }
+
+    //checks a slice of the candidate hosts, splitting until a slice is small enough to run on one thread
+    private class AvailabilityTask extends RecursiveAction {
+
+        private static final int HOSTS_PER_TASK = 64;
+
+        private final List<Host> hosts;
+        private final LocalDate startDate;
+        private final LocalDate endDate;
+        private final Reservation[] quotes;
+        private final DataAccessException[] errors;
+        private final int start;
+        private final int end;
+
+        AvailabilityTask(List<Host> hosts, LocalDate startDate, LocalDate endDate, Reservation[] quotes,
+                         DataAccessException[] errors, int start, int end) {
+            this.hosts = hosts;
+            this.startDate = startDate;
+            this.endDate = endDate;
+            this.quotes = quotes;
+            this.errors = errors;
+            this.start = start;
+            this.end = end;
         }
 
-        return result;
+        @Override
+        protected void compute() {
+            if (end - start > HOSTS_PER_TASK) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new AvailabilityTask(hosts, startDate, endDate, quotes, errors, start, middle),
+                        new AvailabilityTask(hosts, startDate, endDate, quotes, errors, middle, end));
+                return;
+            }
+
+            for (int i = start; i < end; i++) {
+                Host host = hosts.get(i);
+                try {
+                    if (pricingEngine.validateStay(host, startDate, endDate) == null
+                            && !isBooked(host.getId(), startDate, endDate, NO_RESERVATION)) {
+                        Reservation quote = new Reservation(host, null, startDate, endDate);
+                        quote.setTotal(pricingEngine.quote(host, startDate, endDate));
+                        quotes[i] = quote;
+                    }
+                } catch (DataAccessException ex) {
+                    errors[i] = ex;
+                }
+            }
+        }
+    }
+
+    //rebuilt only when the host repository reports a change
+    private synchronized HostLocationIndex getLocationIndex() throws DataAccessException {
+        long version = hostRepository.getVersion();
+        if (locationIndex == null || version < 0 || version != locationIndexVersion) {
+            locationIndex = new HostLocationIndex(hostRepository.findAllNotDeleted());
+            locationIndexVersion = version;
+        }
+        return locationIndex;
+    }
+
+    //a new stay inside the horizon is one masked scan of the host's calendar; an update has to skip its own
+    //nights and a stay past the horizon isn't in the bitmap, so both go to the interval index
+    private boolean isBooked(String hostId, LocalDate startDate, LocalDate endDate, int ignoredReservationId)
+            throws DataAccessException {
+        if (ignoredReservationId == NO_RESERVATION) {
+            OccupancyCalendar calendar = reservationRepository.getCalendar(hostId);
+            if (calendar.covers(startDate, endDate)) {
+                return !calendar.isFree(startDate, endDate);
+            }
+        }
+        return getIntervalIndex(hostId).overlaps(startDate, endDate, ignoredReservationId);
+    }
+
+    private boolean hasHostId(Reservation reservation) {
+        return reservation != null && reservation.getHost() != null && reservation.getHost().getId() != null;
+    }
+
+    private Object getHostLock(String hostId) {
+        return hostLocks.computeIfAbsent(hostId, id -> new Object());
+    }
+
+    //the version is read before the rows, so a write landing in between only makes the next lookup rebuild again
+    private ReservationIntervalIndex getIntervalIndex(String hostId) throws DataAccessException {
+        long version = reservationRepository.getVersion(hostId);
+        IndexEntry entry = intervalIndexes.get(hostId);
+        if (entry != null && (version < 0 || version == entry.version)) {
+            return entry.index;
+        }
+
+        IndexEntry built = new IndexEntry(new ReservationIntervalIndex(reservationRepository.findById(hostId)), version);
+        if (entry == null) {
+            //an unversioned index gets patched by writers, so only one of two racing builds may be kept
+            IndexEntry existing = intervalIndexes.putIfAbsent(hostId, built);
+            return existing == null ? built.index : existing.index;
+        }
+        intervalIndexes.put(hostId, built);
+        return built.index;
+    }
+
+    //after a write, a versioned repository's index is read again on next use rather than patched, since only the
+    //repository knows whether another process wrote too; returns false when the caller should patch the index
+    private boolean dropIntervalIndex(String hostId) throws DataAccessException {
+        if (reservationRepository.getVersion(hostId) < 0) {
+            return false;
+        }
+        intervalIndexes.remove(hostId);
+        return true;
+    }
+
+    private static class IndexEntry {
+        private final ReservationIntervalIndex index;
+        private final long version;
+
+        IndexEntry(ReservationIntervalIndex index, long version) {
+            this.index = index;
+            this.version = version;
+        }
     }
 }
@@ -1,13 +1,44 @@
 package learn.domain;
 
+import learn.models.Guest;
+import learn.models.Host;
 import learn.models.User;
 
 import java.math.BigDecimal;
-import java.util.regex.Pattern;
-import java.util.regex.Matcher;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
+//checks scan the fields by hand instead of compiling patterns; every check returns a Result of its own
 public class Validation {
 
+    //every check for the user's type, one result per user in list order, split across the common fork/join pool
+    public List<Result<User>> validateAll(List<User> users) {
+        Result<User>[] results = newResultArray(users.size());
+        if (!users.isEmpty()) {
+            ForkJoinPool.commonPool().invoke(new ValidateTask(users, results, 0, users.size()));
+        }
+        return new ArrayList<>(Arrays.asList(results));
+    }
+
+    public Result<User> validate(User user) {
+        Result<User> result = validateUser(user, user instanceof Host ? "Host" : "Guest");
+        if (!result.isSuccess()) {
+            return result;
+        }
+
+        if (user instanceof Host) {
+            result = validateFullAddress(user);
+            if (!result.isSuccess()) {
+                return result;
+            }
+            return validateRates(user);
+        }
+        return validateFullName(user);
+    }
+
     public Result<User> validateUser(User user, String userType) {
         Result<User> result = validateNoNulls(user, userType);
         if (!result.isSuccess()) {
@@ -19,29 +50,27 @@ public class Validation {
     }
 
     public Result<User> validateNoNulls(User user, String userType) {
-        Result<User> result = new Result<>();
-
         if (user == null) {
-            result.addErrorMessage(userType + " cannot be null.");
-            return result;
+            return failure(null, userType + " cannot be null.");
         }
 
-        if (user.getLastName() == null || user.getLastName().isBlank()) {
-            result.addErrorMessage("Last name cannot be empty.");
+        Result<User> result = null;
+        if (isBlank(user.getLastName())) {
+            result = failure(result, "Last name cannot be empty.");
         }
 
-        if (user.getEmail() == null || user.getEmail().isBlank()) {
-            result.addErrorMessage("Email cannot be empty.");
+        if (isBlank(user.getEmail())) {
+            result = failure(result, "Email cannot be empty.");
         }
 
-        if (user.getPhone() == null || user.getPhone().isBlank()) {
-            result.addErrorMessage("Phone cannot be empty.");
+        if (isBlank(user.getPhone())) {
+            result = failure(result, "Phone cannot be empty.");
         }
 
-        if (user.getState() == null || user.getState().isBlank()) {
-            result.addErrorMessage("State cannot be empty.");
+        if (isBlank(user.getState())) {
+            result = failure(result, "State cannot be empty.");
         }
-        return result;
+        return result == null ? new Result<>() : result;
     }
 
     public Result<User> validateFields(User user) {
@@ -59,112 +88,216 @@ public class Validation {
         return result;
     }
 
+    //reads the name fields directly; a comma in either would break the csv row
     public Result<User> validateFullName(User user) {
-        Result<User> result = new Result<>();
-        if (user.getFullName() == null || user.getFullName().isBlank()) {
-            result.addErrorMessage("Name cannot be empty.");
+        if (isBlank(user.getLastName())) {
+            return failure(null, "Name cannot be empty.");
         }
-
-        String name = user.getFullName();
-        String[] nameFields = name.split(",");
-        if (nameFields.length != 2) {
-            result.addErrorMessage("Invalid Name.");
+        if (!(user instanceof Guest)) {
+            return failure(null, "Invalid Name.");
         }
 
-        if (nameFields[0] == null || nameFields[0].isBlank()) {
-            result.addErrorMessage("First name cannot be empty.");
+        String firstName = ((Guest) user).getFirstName();
+        if (isBlank(firstName)) {
+            return failure(null, "First name cannot be empty.");
         }
-        return result;
+        if (firstName.indexOf(',') >= 0 || user.getLastName().indexOf(',') >= 0) {
+            return failure(null, "Invalid Name.");
+        }
+        return new Result<>();
     }
 
     public Result<User> validateEmail(String email) {
-        Result<User> result = new Result<>();
         if (email == null) {
-            result.addErrorMessage("Email cannot but empty.");
-            return result;
+            return failure(null, "Email cannot but empty.");
+        }
+        if (!isEmail(email)) {
+            return failure(null, "Not a valid email address.");
         }
+        return new Result<>();
+    }
 
-        //regular expression for email
-        String emailRegex = "^[\\w!#$%&'*+/=?`{|}~^-]+(?:\\.[\\w!#$%&'*+/=?`{|}~^-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,6}$";
+    //(ddd) ddddddd
+    public Result<User> validatePhone(String phone) {
+        if (phone == null || phone.length() != 13 || phone.charAt(0) != '(' || phone.charAt(4) != ')'
+                || " \t\n\u000B\f\r".indexOf(phone.charAt(5)) < 0
+                || !isDigits(phone, 1, 4) || !isDigits(phone, 6, 13)) {
+            return failure(null, "Not a valid phone number.");
+        }
+        return new Result<>();
+    }
 
-        Pattern pattern = Pattern.compile(emailRegex);
-        Matcher matcher = pattern.matcher(email);
+    //reads the address fields directly; a comma in any of them would break the csv row
+    public Result<User> validateFullAddress(User user) {
+        if (!(user instanceof Host)) {
+            return failure(null, "Invalid Address.");
+        }
 
-        if (!matcher.matches()) {
-            result.addErrorMessage("Not a valid email address.");
+        Host host = (Host) user;
+        Result<User> result = null;
+        if (isBlank(host.getAddress()) || isBlank(host.getCity()) || host.getAddress().indexOf(',') >= 0
+                || host.getCity().indexOf(',') >= 0 || host.getState() == null || host.getState().indexOf(',') >= 0) {
+            result = failure(result, "Invalid Address.");
         }
 
-        return result;
+        String postalCode = host.getPostalCode();
+        if (postalCode == null || postalCode.length() != 5 || !isDigits(postalCode, 0, 5)) {
+            result = failure(result, "Invalid postal code.");
+        }
+
+        return result == null ? new Result<>() : result;
     }
 
-    public Result<User> validatePhone(String phone) {
-        Result<User> result = new Result<>();
+    public Result<User> validateState(String state) {
+        if (state == null || state.length() != 2 || !Character.isLetter(state.charAt(0))
+                || !Character.isLetter(state.charAt(1))) {
+            return failure(null, "State must be abbreviation (ex. MN).");
+        }
+        return new Result<>();
+    }
+
+    //reads the rates directly rather than through getRates, which builds a new list
+    public Result<User> validateRates(User user) {
+        if (!(user instanceof Host)) {
+            return failure(null, "Invalid rates");
+        }
 
-        //regex for phone number
-        String phoneRegex = "[(]\\d\\d\\d[)]\\s\\d\\d\\d\\d\\d\\d\\d";
-        Pattern pattern = Pattern.compile(phoneRegex);
-        Matcher matcher = pattern.matcher(phone);
+        Host host = (Host) user;
+        Result<User> result = null;
+        if (host.getStandardRate() == null || host.getStandardRate().compareTo(BigDecimal.ZERO) <= 0) {
+            result = failure(result, "Standard rate must be greater than 0.");
+        }
 
-        if (!matcher.matches()) {
-            result.addErrorMessage("Not a valid phone number.");
+        if (host.getWeekendRate() == null || host.getWeekendRate().compareTo(BigDecimal.ZERO) <= 0) {
+            result = failure(result, "Weekend rate must be greater than 0.");
         }
-        return result;
+
+        return result == null ? new Result<>() : result;
     }
 
-    public Result<User> validateFullAddress(User user) {
-        Result<User> result = new Result<>();
+    //splits the user range in half until a slice is small enough to run on one thread
+    private class ValidateTask extends RecursiveAction {
 
-        String address = user.getFullAddress();
-        String[] addressFields = address.split(",");
-        if (addressFields.length != 4) {
-            result.addErrorMessage("Invalid Address.");
-        }
+        private static final int USERS_PER_TASK = 256;
+
+        private final List<User> users;
+        private final Result<User>[] results;
+        private final int start;
+        private final int end;
 
-        if (addressFields[addressFields.length - 1].length() != 5) {
-            result.addErrorMessage("Invalid postal code.");
+        ValidateTask(List<User> users, Result<User>[] results, int start, int end) {
+            this.users = users;
+            this.results = results;
+            this.start = start;
+            this.end = end;
         }
 
-        try {
-            String postalCode = addressFields[addressFields.length - 1];
-            int postalCodeInt = Integer.parseInt(postalCode);
-            if (postalCodeInt < 0) {
-                result.addErrorMessage("Invalid postal code.");
+        @Override
+        protected void compute() {
+            if (end - start > USERS_PER_TASK) {
+                int middle = (start + end) >>> 1;
+                invokeAll(new ValidateTask(users, results, start, middle),
+                        new ValidateTask(users, results, middle, end));
+                return;
             }
-        } catch (NumberFormatException ex) {
-            result.addErrorMessage("Invalid postal code.");
-        }
 
-        return result;
+            for (int i = start; i < end; i++) {
+                results[i] = validate(users.get(i));
+            }
+        }
     }
 
-    public Result<User> validateState(String state) {
-        Result<User> result = new Result<>();
+    //same language as ^[\w!#$%&'*+/=?`{|}~^-]+(?:\.[\w!#$%&'*+/=?`{|}~^-]+)*@(?:[a-zA-Z0-9-]+\.)+[a-zA-Z]{2,6}$
+    static boolean isEmail(String email) {
+        int at = email.indexOf('@');
+        if (at <= 0) {
+            return false;
+        }
+
+        //local part: runs of allowed characters joined by single dots
+        boolean inRun = false;
+        for (int i = 0; i < at; i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                if (!inRun) {
+                    return false;
+                }
+                inRun = false;
+            } else if (isLocalChar(c)) {
+                inRun = true;
+            } else {
+                return false;
+            }
+        }
+        if (!inRun) {
+            return false;
+        }
 
-        if (state.length() != 2) {
-            result.addErrorMessage("State must be abbreviation (ex. MN).");
+        //domain: at least one label ending in a dot, then 2 to 6 letters
+        int lastDot = email.lastIndexOf('.');
+        int tldLength = email.length() - lastDot - 1;
+        if (lastDot <= at + 1 || tldLength < 2 || tldLength > 6) {
+            return false;
+        }
+        for (int i = lastDot + 1; i < email.length(); i++) {
+            if (!isAsciiLetter(email.charAt(i))) {
+                return false;
+            }
         }
 
-        if (!Character.isLetter(state.charAt(0)) || !Character.isLetter(state.charAt(1))) {
-            result.addErrorMessage("State must be abbreviation (ex. MN).");
+        int labelLength = 0;
+        for (int i = at + 1; i < lastDot; i++) {
+            char c = email.charAt(i);
+            if (c == '.') {
+                if (labelLength == 0) {
+                    return false;
+                }
+                labelLength = 0;
+            } else if (isAsciiLetter(c) || isAsciiDigit(c) || c == '-') {
+                labelLength++;
+            } else {
+                return false;
+            }
         }
+        return labelLength > 0;
+    }
 
-        return result;
+    private static boolean isLocalChar(char c) {
+        return isAsciiLetter(c) || isAsciiDigit(c) || "_!#$%&'*+/=?`{|}~^-".indexOf(c) >= 0;
     }
 
-    public Result<User> validateRates(User user) {
-        Result<User> result = new Result<>();
-        if (user.getRates().size() != 2) {
-            result.addErrorMessage("Invalid rates");
-        }
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
 
-        if (user.getRates().get(0).compareTo(BigDecimal.ZERO) <= 0) {
-            result.addErrorMessage("Standard rate must be greater than 0.");
-        }
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
 
-        if (user.getRates().get(1).compareTo(BigDecimal.ZERO) <= 0) {
-            result.addErrorMessage("Weekend rate must be greater than 0.");
+    private static boolean isDigits(String value, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (!isAsciiDigit(value.charAt(i))) {
+                return false;
+            }
         }
+        return true;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
 
+    //starts a failure result on the first message and adds to it after that
+    private static Result<User> failure(Result<User> result, String message) {
+        if (result == null) {
+            result = new Result<>();
+        }
+        result.addErrorMessage(message);
         return result;
     }
+
+    @SuppressWarnings("unchecked")
+    private static Result<User>[] newResultArray(int size) {
+        return (Result<User>[]) new Result[size];
+    }
 }
@@ -0,0 +1,112 @@
+package learn.domain.pricing;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Map;
+
+//a host's rule set evaluated once into nightly rates, stored as prefix sums so any stay is two lookups
+class CompiledRateTable {
+
+    private final long firstDay;
+    //prefixSums[i] is the total of the nights firstDay .. firstDay + i - 1, as unscaled amounts at scale
+    private final long[] prefixSums;
+    private final int scale;
+    private final BigDecimal standardRate;
+    private final BigDecimal weekendRate;
+
+    CompiledRateTable(RateRuleSet ruleSet, BigDecimal standardRate, BigDecimal weekendRate,
+                      LocalDate firstDate, LocalDate lastDate) {
+        this.standardRate = standardRate;
+        this.weekendRate = weekendRate;
+        this.scale = findScale(ruleSet, standardRate, weekendRate);
+
+        LocalDate first = firstDate;
+        LocalDate last = lastDate;
+        for (SeasonalRate season : ruleSet.getSeasons()) {
+            first = min(first, season.getStartDate());
+            last = max(last, season.getEndDate());
+        }
+        for (LocalDate holiday : ruleSet.getHolidays().keySet()) {
+            first = min(first, holiday);
+            last = max(last, holiday);
+        }
+        firstDay = first.toEpochDay();
+
+        long[] nightly = new long[(int) (last.toEpochDay() - firstDay + 1)];
+        for (int i = 0; i < nightly.length; i++) {
+            nightly[i] = WeeklyRates.isWeekendNight(firstDay + i)
+                    ? PricingEngine.toUnscaled(weekendRate, scale)
+                    : PricingEngine.toUnscaled(standardRate, scale);
+        }
+
+        for (SeasonalRate season : ruleSet.getSeasons()) {
+            long standard = PricingEngine.toUnscaled(season.getStandardRate(), scale);
+            long weekend = PricingEngine.toUnscaled(season.getWeekendRate(), scale);
+            for (long day = season.getStartDate().toEpochDay(); day <= season.getEndDate().toEpochDay(); day++) {
+                nightly[(int) (day - firstDay)] = WeeklyRates.isWeekendNight(day) ? weekend : standard;
+            }
+        }
+
+        for (Map.Entry<LocalDate, BigDecimal> holiday : ruleSet.getHolidays().entrySet()) {
+            nightly[(int) (holiday.getKey().toEpochDay() - firstDay)] = PricingEngine.toUnscaled(holiday.getValue(), scale);
+        }
+
+        prefixSums = new long[nightly.length + 1];
+        for (int i = 0; i < nightly.length; i++) {
+            prefixSums[i + 1] = Math.addExact(prefixSums[i], nightly[i]);
+        }
+    }
+
+    boolean isCompiledFor(BigDecimal standardRate, BigDecimal weekendRate) {
+        return this.standardRate.compareTo(standardRate) == 0 && this.weekendRate.compareTo(weekendRate) == 0;
+    }
+
+    int getScale() {
+        return scale;
+    }
+
+    //nights outside the table have no rules, so they fall back to the plain weekly rates
+    long total(long startDay, long nights) {
+        long endDay = startDay + nights;
+        long tableEndDay = firstDay + prefixSums.length - 1;
+        long standard = PricingEngine.toUnscaled(standardRate, scale);
+        long weekend = PricingEngine.toUnscaled(weekendRate, scale);
+        long total = 0;
+
+        if (startDay < firstDay) {
+            long before = Math.min(endDay, firstDay) - startDay;
+            total += WeeklyRates.total(startDay, before, standard, weekend);
+        }
+
+        long from = Math.max(startDay, firstDay);
+        long to = Math.min(endDay, tableEndDay);
+        if (from < to) {
+            total += prefixSums[(int) (to - firstDay)] - prefixSums[(int) (from - firstDay)];
+        }
+
+        if (endDay > tableEndDay) {
+            long afterStart = Math.max(startDay, tableEndDay);
+            total += WeeklyRates.total(afterStart, endDay - afterStart, standard, weekend);
+        }
+        return total;
+    }
+
+    private static int findScale(RateRuleSet ruleSet, BigDecimal standardRate, BigDecimal weekendRate) {
+        int scale = Math.max(2, Math.max(standardRate.scale(), weekendRate.scale()));
+        for (SeasonalRate season : ruleSet.getSeasons()) {
+            scale = Math.max(scale, Math.max(season.getStandardRate().scale(), season.getWeekendRate().scale()));
+        }
+        for (BigDecimal rate : ruleSet.getHolidays().values()) {
+            scale = Math.max(scale, rate.scale());
+        }
+        return scale;
+    }
+
+    private static LocalDate min(LocalDate a, LocalDate b) {
+        return a.isBefore(b) ? a : b;
+    }
+
+    private static LocalDate max(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
@@ -0,0 +1,22 @@
+package learn.domain.pricing;
+
+import java.math.BigDecimal;
+
+//takes percentOff off the whole stay once it is at least minimumNights long
+public class LengthOfStayDiscount {
+    private final int minimumNights;
+    private final BigDecimal percentOff;
+
+    public LengthOfStayDiscount(int minimumNights, BigDecimal percentOff) {
+        this.minimumNights = minimumNights;
+        this.percentOff = percentOff;
+    }
+
+    public int getMinimumNights() {
+        return minimumNights;
+    }
+
+    public BigDecimal getPercentOff() {
+        return percentOff;
+    }
+}
@@ -0,0 +1,131 @@
+package learn.domain.pricing;
+
+import learn.models.Host;
+import learn.models.User;
+import learn.repository.DataAccessException;
+import learn.repository.RateRuleFileRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+//quotes stays from a host's rates plus its optional rule set
+//a stay runs from startDate to endDate with the end date charged as a night, as ReservationService always has
+public class PricingEngine {
+
+    private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
+
+    private final int horizonDays;
+    private final Map<String, RateRuleSet> ruleSets = new ConcurrentHashMap<>();
+    private final Map<String, CompiledRateTable> compiledTables = new ConcurrentHashMap<>();
+
+    public PricingEngine() {
+        this(730);
+    }
+
+    public PricingEngine(int horizonDays) {
+        this.horizonDays = horizonDays;
+    }
+
+    //starts from the rule sets in the rules file; setRuleSet changes them for this run only
+    public PricingEngine(RateRuleFileRepository ruleRepository) throws DataAccessException {
+        this();
+        ruleSets.putAll(ruleRepository.findAll());
+    }
+
+    public void setRuleSet(String hostId, RateRuleSet ruleSet) {
+        if (ruleSet == null) {
+            ruleSets.remove(hostId);
+        } else {
+            ruleSets.put(hostId, ruleSet);
+        }
+        compiledTables.remove(hostId);
+    }
+
+    public RateRuleSet getRuleSet(String hostId) {
+        return ruleSets.get(hostId);
+    }
+
+    public BigDecimal quote(User host, LocalDate startDate, LocalDate endDate) {
+        BigDecimal standardRate = getStandardRate(host);
+        BigDecimal weekendRate = getWeekendRate(host);
+        long nights = countNights(startDate, endDate);
+
+        RateRuleSet ruleSet = host.getId() == null ? null : ruleSets.get(host.getId());
+        if (ruleSet == null) {
+            int scale = Math.max(2, Math.max(standardRate.scale(), weekendRate.scale()));
+            long total = WeeklyRates.total(startDate.toEpochDay(), nights,
+                    toUnscaled(standardRate, scale), toUnscaled(weekendRate, scale));
+            return BigDecimal.valueOf(total, scale);
+        }
+
+        CompiledRateTable table = getCompiledTable(host.getId(), ruleSet, standardRate, weekendRate);
+        BigDecimal total = BigDecimal.valueOf(table.total(startDate.toEpochDay(), nights), table.getScale());
+        return applyDiscount(total, ruleSet.getDiscounts(), nights);
+    }
+
+    //returns an error message when the stay breaks the host's rules, otherwise null
+    public String validateStay(User host, LocalDate startDate, LocalDate endDate) {
+        RateRuleSet ruleSet = host.getId() == null ? null : ruleSets.get(host.getId());
+        if (ruleSet == null || ruleSet.getMinimumStay() <= 0) {
+            return null;
+        }
+
+        if (countNights(startDate, endDate) < ruleSet.getMinimumStay()) {
+            return String.format("Stay must be at least %s nights.", ruleSet.getMinimumStay());
+        }
+        return null;
+    }
+
+    static long toUnscaled(BigDecimal amount, int scale) {
+        return amount.setScale(scale).unscaledValue().longValueExact();
+    }
+
+    private long countNights(LocalDate startDate, LocalDate endDate) {
+        return Math.max(0, endDate.toEpochDay() - startDate.toEpochDay() + 1);
+    }
+
+    private CompiledRateTable getCompiledTable(String hostId, RateRuleSet ruleSet,
+                                               BigDecimal standardRate, BigDecimal weekendRate) {
+        CompiledRateTable table = compiledTables.get(hostId);
+        if (table == null || !table.isCompiledFor(standardRate, weekendRate)) {
+            LocalDate today = LocalDate.now();
+            table = new CompiledRateTable(ruleSet, standardRate, weekendRate, today, today.plusDays(horizonDays));
+            compiledTables.put(hostId, table);
+        }
+        return table;
+    }
+
+    //the single largest discount the stay qualifies for
+    private BigDecimal applyDiscount(BigDecimal total, List<LengthOfStayDiscount> discounts, long nights) {
+        BigDecimal percentOff = BigDecimal.ZERO;
+        for (LengthOfStayDiscount discount : discounts) {
+            if (nights >= discount.getMinimumNights() && discount.getPercentOff().compareTo(percentOff) > 0) {
+                percentOff = discount.getPercentOff();
+            }
+        }
+
+        if (percentOff.signum() == 0) {
+            return total;
+        }
+        BigDecimal multiplier = ONE_HUNDRED.subtract(percentOff).divide(ONE_HUNDRED);
+        return total.multiply(multiplier).setScale(total.scale(), RoundingMode.HALF_UP);
+    }
+
+    private BigDecimal getStandardRate(User host) {
+        if (host instanceof Host) {
+            return ((Host) host).getStandardRate();
+        }
+        return host.getRates().get(0);
+    }
+
+    private BigDecimal getWeekendRate(User host) {
+        if (host instanceof Host) {
+            return ((Host) host).getWeekendRate();
+        }
+        return host.getRates().get(1);
+    }
+}
@@ -0,0 +1,54 @@
+package learn.domain.pricing;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+//pricing rules for one host on top of its standard and weekend rates
+//later seasons win over earlier ones where they overlap, holidays win over seasons
+public class RateRuleSet {
+    private final List<SeasonalRate> seasons = new ArrayList<>();
+    private final Map<LocalDate, BigDecimal> holidays = new LinkedHashMap<>();
+    private final List<LengthOfStayDiscount> discounts = new ArrayList<>();
+    private int minimumStay;
+
+    public RateRuleSet addSeason(SeasonalRate season) {
+        seasons.add(season);
+        return this;
+    }
+
+    public RateRuleSet addHoliday(LocalDate date, BigDecimal rate) {
+        holidays.put(date, rate);
+        return this;
+    }
+
+    public RateRuleSet addDiscount(LengthOfStayDiscount discount) {
+        discounts.add(discount);
+        return this;
+    }
+
+    public RateRuleSet setMinimumStay(int minimumStay) {
+        this.minimumStay = minimumStay;
+        return this;
+    }
+
+    public List<SeasonalRate> getSeasons() {
+        return Collections.unmodifiableList(seasons);
+    }
+
+    public Map<LocalDate, BigDecimal> getHolidays() {
+        return Collections.unmodifiableMap(holidays);
+    }
+
+    public List<LengthOfStayDiscount> getDiscounts() {
+        return Collections.unmodifiableList(discounts);
+    }
+
+    public int getMinimumStay() {
+        return minimumStay;
+    }
+}
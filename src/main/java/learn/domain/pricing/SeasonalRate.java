@@ -0,0 +1,35 @@
+package learn.domain.pricing;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+//replaces a host's standard and weekend rates for every night from startDate to endDate, both included
+public class SeasonalRate {
+    private final LocalDate startDate;
+    private final LocalDate endDate;
+    private final BigDecimal standardRate;
+    private final BigDecimal weekendRate;
+
+    public SeasonalRate(LocalDate startDate, LocalDate endDate, BigDecimal standardRate, BigDecimal weekendRate) {
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.standardRate = standardRate;
+        this.weekendRate = weekendRate;
+    }
+
+    public LocalDate getStartDate() {
+        return startDate;
+    }
+
+    public LocalDate getEndDate() {
+        return endDate;
+    }
+
+    public BigDecimal getStandardRate() {
+        return standardRate;
+    }
+
+    public BigDecimal getWeekendRate() {
+        return weekendRate;
+    }
+}
@@ -0,0 +1,39 @@
+package learn.domain.pricing;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+//closed-form totals for the plain standard/weekend rates, Friday and Saturday nights are weekend nights
+final class WeeklyRates {
+
+    private WeeklyRates() {
+    }
+
+    static boolean isWeekendNight(long epochDay) {
+        DayOfWeek day = LocalDate.ofEpochDay(epochDay).getDayOfWeek();
+        return day == DayOfWeek.FRIDAY || day == DayOfWeek.SATURDAY;
+    }
+
+    static long total(long startDay, long nights, long standardRate, long weekendRate) {
+        if (nights <= 0) {
+            return 0;
+        }
+        long weekendNights = countWeekendNights(LocalDate.ofEpochDay(startDay).getDayOfWeek(), nights);
+        return Math.addExact(
+                Math.multiplyExact(nights - weekendNights, standardRate),
+                Math.multiplyExact(weekendNights, weekendRate));
+    }
+
+    //whole weeks always hold two weekend nights, only the at most six leftover nights need walking
+    static long countWeekendNights(DayOfWeek firstNight, long nights) {
+        long weekendNights = (nights / 7) * 2;
+        int day = firstNight.getValue();
+        for (long i = nights % 7; i > 0; i--) {
+            if (day == DayOfWeek.FRIDAY.getValue() || day == DayOfWeek.SATURDAY.getValue()) {
+                weekendNights++;
+            }
+            day = day % 7 + 1;
+        }
+        return weekendNights;
+    }
+}
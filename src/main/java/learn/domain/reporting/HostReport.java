@@ -0,0 +1,41 @@
+package learn.domain.reporting;
+
+import learn.models.Host;
+
+import java.math.BigDecimal;
+
+//one host's figures for a report window
+public class HostReport {
+    private final Host host;
+    private final long revenueCents;
+    private final int nightsBooked;
+    private final int windowNights;
+
+    public HostReport(Host host, long revenueCents, int nightsBooked, int windowNights) {
+        this.host = host;
+        this.revenueCents = revenueCents;
+        this.nightsBooked = nightsBooked;
+        this.windowNights = windowNights;
+    }
+
+    public Host getHost() {
+        return host;
+    }
+
+    public long getRevenueCents() {
+        return revenueCents;
+    }
+
+    public BigDecimal getRevenue() {
+        return BigDecimal.valueOf(revenueCents, 2);
+    }
+
+    public int getNightsBooked() {
+        return nightsBooked;
+    }
+
+    //booked nights over the nights in the window, 0 to 1
+    public double getOccupancyRate() {
+        return windowNights == 0 ? 0 : (double) nightsBooked / windowNights;
+    }
+}
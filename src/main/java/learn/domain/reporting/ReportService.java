@@ -0,0 +1,160 @@
+package learn.domain.reporting;
+
+import learn.domain.Result;
+import learn.models.Host;
+import learn.repository.DataAccessException;
+import learn.repository.HostRepository;
+import learn.repository.ReservationRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//totals every active host's reservations for a window, reading and summing hosts in parallel on a fork/join pool
+//a stay's revenue is split evenly across its nights and only the nights inside the window count,
+//nights are half-open like the availability check, so a stay ending on the window's first day adds nothing
+public class ReportService {
+
+    private final ReservationRepository reservationRepository;
+    private final HostRepository hostRepository;
+    private final ForkJoinPool pool;
+
+    public ReportService(ReservationRepository reservationRepository, HostRepository hostRepository) {
+        this(reservationRepository, hostRepository, Runtime.getRuntime().availableProcessors());
+    }
+
+    public ReportService(ReservationRepository reservationRepository, HostRepository hostRepository,
+                         int parallelism) {
+        this.reservationRepository = reservationRepository;
+        this.hostRepository = hostRepository;
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public Result<RevenueReport> buildReport(LocalDate from, LocalDate to) throws DataAccessException {
+        Result<RevenueReport> result = new Result<>();
+        if (from == null || to == null) {
+            result.addErrorMessage("Dates cannot be null.");
+            return result;
+        }
+        if (!to.isAfter(from)) {
+            result.addErrorMessage("Start date must be before end date.");
+            return result;
+        }
+
+        List<Host> hosts = hostRepository.findAllNotDeleted();
+        long fromDay = from.toEpochDay();
+        long toDay = to.toEpochDay();
+        int windowNights = Math.toIntExact(toDay - fromDay);
+
+        long[] revenueCents = new long[hosts.size()];
+        int[] nightsBooked = new int[hosts.size()];
+        DataAccessException[] errors = new DataAccessException[hosts.size()];
+        if (!hosts.isEmpty()) {
+            pool.invoke(new HostTask(hosts, fromDay, toDay, revenueCents, nightsBooked, errors, 0, hosts.size()));
+        }
+        for (DataAccessException error : errors) {
+            if (error != null) {
+                throw error;
+            }
+        }
+
+        List<HostReport> hostReports = new ArrayList<>(hosts.size());
+        for (int i = 0; i < hosts.size(); i++) {
+            hostReports.add(new HostReport(hosts.get(i), revenueCents[i], nightsBooked[i], windowNights));
+        }
+        hostReports.sort(Comparator.comparingLong(HostReport::getRevenueCents).reversed());
+
+        result.setPayload(new RevenueReport(from, to, hostReports, sumByState(hosts, revenueCents, nightsBooked,
+                windowNights)));
+        return result;
+    }
+
+    public void close() {
+        pool.shutdown();
+    }
+
+    private List<StateReport> sumByState(List<Host> hosts, long[] revenueCents, int[] nightsBooked,
+                                         int windowNights) {
+        //state -> {hosts, cents, nights}
+        Map<String, long[]> totals = new TreeMap<>();
+        for (int i = 0; i < hosts.size(); i++) {
+            String state = hosts.get(i).getState() == null ? "" : hosts.get(i).getState();
+            long[] total = totals.computeIfAbsent(state, s -> new long[3]);
+            total[0]++;
+            total[1] += revenueCents[i];
+            total[2] += nightsBooked[i];
+        }
+
+        List<StateReport> states = new ArrayList<>(totals.size());
+        for (Map.Entry<String, long[]> entry : totals.entrySet()) {
+            long[] total = entry.getValue();
+            states.add(new StateReport(entry.getKey(), (int) total[0], total[1], total[2], windowNights));
+        }
+        states.sort(Comparator.comparing(StateReport::getRevenue).reversed());
+        return states;
+    }
+
+    //splits the host range in half until each task holds one host
+    private class HostTask extends RecursiveAction {
+
+        private final List<Host> hosts;
+        private final long fromDay;
+        private final long toDay;
+        private final long[] revenueCents;
+        private final int[] nightsBooked;
+        private final DataAccessException[] errors;
+        private final int start;
+        private final int end;
+
+        HostTask(List<Host> hosts, long fromDay, long toDay, long[] revenueCents, int[] nightsBooked,
+                 DataAccessException[] errors, int start, int end) {
+            this.hosts = hosts;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.revenueCents = revenueCents;
+            this.nightsBooked = nightsBooked;
+            this.errors = errors;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start == 1) {
+                try {
+                    sumHost(start, hosts.get(start).getId());
+                } catch (DataAccessException ex) {
+                    errors[start] = ex;
+                }
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+            invokeAll(new HostTask(hosts, fromDay, toDay, revenueCents, nightsBooked, errors, start, middle),
+                    new HostTask(hosts, fromDay, toDay, revenueCents, nightsBooked, errors, middle, end));
+        }
+
+        //the repository hands over days and cents, so no Reservation is built for the sum
+        private void sumHost(int index, String hostId) throws DataAccessException {
+            //{cents, nights}
+            long[] sums = new long[2];
+            reservationRepository.forEachStay(hostId, (startDay, endDay, totalCents) -> {
+                long stayNights = endDay - startDay;
+                long inWindow = Math.min(endDay, toDay) - Math.max(startDay, fromDay);
+                if (stayNights <= 0 || inWindow <= 0) {
+                    return;
+                }
+
+                sums[1] += inWindow;
+                sums[0] += totalCents * inWindow / stayNights;
+            });
+            revenueCents[index] = sums[0];
+            nightsBooked[index] = Math.toIntExact(sums[1]);
+        }
+    }
+}
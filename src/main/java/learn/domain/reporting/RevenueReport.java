@@ -0,0 +1,57 @@
+package learn.domain.reporting;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+//revenue, nights booked and occupancy for stays overlapping [from, to), hosts and states by revenue, highest first
+public class RevenueReport {
+    private final LocalDate from;
+    private final LocalDate to;
+    private final List<HostReport> hosts;
+    private final List<StateReport> states;
+
+    public RevenueReport(LocalDate from, LocalDate to, List<HostReport> hosts, List<StateReport> states) {
+        this.from = from;
+        this.to = to;
+        this.hosts = hosts;
+        this.states = states;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public List<HostReport> getHosts() {
+        return hosts;
+    }
+
+    public List<StateReport> getStates() {
+        return states;
+    }
+
+    public BigDecimal getTotalRevenue() {
+        long cents = 0;
+        for (HostReport host : hosts) {
+            cents += host.getRevenueCents();
+        }
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public List<HostReport> getTopHostsByRevenue(int limit) {
+        return hosts.stream().limit(limit).collect(Collectors.toList());
+    }
+
+    public List<HostReport> getTopHostsByNights(int limit) {
+        return hosts.stream()
+                .sorted(Comparator.comparingInt(HostReport::getNightsBooked).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+}
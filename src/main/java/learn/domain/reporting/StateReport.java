@@ -0,0 +1,42 @@
+package learn.domain.reporting;
+
+import java.math.BigDecimal;
+
+//every active host in one state added together
+public class StateReport {
+    private final String state;
+    private final int hostCount;
+    private final long revenueCents;
+    private final long nightsBooked;
+    private final int windowNights;
+
+    public StateReport(String state, int hostCount, long revenueCents, long nightsBooked, int windowNights) {
+        this.state = state;
+        this.hostCount = hostCount;
+        this.revenueCents = revenueCents;
+        this.nightsBooked = nightsBooked;
+        this.windowNights = windowNights;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public int getHostCount() {
+        return hostCount;
+    }
+
+    public BigDecimal getRevenue() {
+        return BigDecimal.valueOf(revenueCents, 2);
+    }
+
+    public long getNightsBooked() {
+        return nightsBooked;
+    }
+
+    //booked nights over the nights every host in the state could have sold
+    public double getOccupancyRate() {
+        long available = (long) hostCount * windowNights;
+        return available == 0 ? 0 : (double) nightsBooked / available;
+    }
+}
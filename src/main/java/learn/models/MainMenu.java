@@ -11,7 +11,10 @@ public enum MainMenu {
     EDIT_GUEST("Edit an Existing Guest"),
     DELETE_RESERVATION("Delete an Existing Reservation"),
     DELETE_HOST("Delete an Existing Host"),
-    DELETE_GUEST("Delete an Existing Guest");
+    DELETE_GUEST("Delete an Existing Guest"),
+    IMPORT_RESERVATIONS("Import Reservations From a File"),
+    VIEW_REPORT("View Revenue and Occupancy Report"),
+    SEARCH_AVAILABILITY("Search Available Hosts");
 
     private final String title;
 
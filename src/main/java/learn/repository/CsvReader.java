@@ -0,0 +1,331 @@
+package learn.repository;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+
+//scans rows straight out of a byte buffer and only records where each field starts and ends,
+//so a row costs no line String and no String[]; callers decode just the fields they need
+//the delimiter and line breaks are ASCII, so splitting on bytes is safe for UTF-8 text
+public class CsvReader implements Closeable {
+
+    public static final long NO_DATE = Long.MIN_VALUE;
+
+    private static final int DEFAULT_BUFFER_SIZE = 64 * 1024;
+    private static final byte DELIMITER = ',';
+    private static final int MAX_FIXED_POINT_DIGITS = 18;
+
+    private final ReadableByteChannel channel;
+    private ByteBuffer buffer;
+    private int limit;
+    private int position;
+    private boolean endOfInput;
+
+    private int rowStart;
+    private int rowEnd;
+    private int[] fieldStarts = new int[16];
+    private int[] fieldEnds = new int[16];
+    private int fieldCount;
+    private byte[] scratch;
+
+    public CsvReader(Path path) throws IOException {
+        this(FileChannel.open(path, StandardOpenOption.READ), DEFAULT_BUFFER_SIZE);
+    }
+
+    public CsvReader(ReadableByteChannel channel, int bufferSize) {
+        this.channel = channel;
+        this.buffer = ByteBuffer.allocate(bufferSize);
+    }
+
+    //reads rows from bytes that are already in memory, such as a mapped file
+    public CsvReader(ByteBuffer contents) {
+        this.channel = null;
+        this.buffer = contents.slice();
+        this.limit = buffer.limit();
+        this.endOfInput = true;
+    }
+
+    //maps the whole file read-only; the mapping stays valid after the channel is closed
+    //only for files that are never truncated or rewritten in place, which would fault the mapping (SIGBUS):
+    //every csv writer here writes a temp file and renames it over the old one, so a mapping keeps the old file
+    //files too large for a single mapping are streamed instead
+    public static CsvReader mapped(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                return new CsvReader(path);
+            }
+            if (size == 0) {
+                return new CsvReader(ByteBuffer.allocate(0));
+            }
+            return new CsvReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, size));
+        }
+    }
+
+    public boolean nextRow() throws IOException {
+        int newline = indexOfNewline(position);
+        while (newline < 0 && !endOfInput) {
+            fill();
+            newline = indexOfNewline(position);
+        }
+
+        if (newline < 0) {
+            if (position >= limit) {
+                fieldCount = 0;
+                return false;
+            }
+            newline = limit;
+        }
+
+        rowStart = position;
+        rowEnd = newline;
+        position = Math.min(newline + 1, limit);
+        if (rowEnd > rowStart && buffer.get(rowEnd - 1) == '\r') {
+            rowEnd--;
+        }
+        splitRow();
+        return true;
+    }
+
+    public boolean isBlank() {
+        for (int i = rowStart; i < rowEnd; i++) {
+            if (buffer.get(i) > ' ') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int getFieldCount() {
+        return fieldCount;
+    }
+
+    public String getString(int field) {
+        int start = fieldStarts[field];
+        int length = fieldEnds[field] - start;
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+        }
+
+        if (scratch == null || scratch.length < length) {
+            scratch = new byte[Math.max(length, 256)];
+        }
+        for (int i = 0; i < length; i++) {
+            scratch[i] = buffer.get(start + i);
+        }
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    public int getInt(int field) {
+        long value = getLong(field);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Value out of range: " + getString(field));
+        }
+        return (int) value;
+    }
+
+    public long getLong(int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = start < end && buffer.get(start) == '-';
+        int i = negative ? start + 1 : start;
+        if (i == end || end - i > MAX_FIXED_POINT_DIGITS) {
+            return Long.parseLong(getString(field));
+        }
+
+        long value = 0;
+        for (; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return Long.parseLong(getString(field));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    //yyyy-MM-dd as days since 1970-01-01, or NO_DATE when the field is not a valid date
+    public long getEpochDay(int field) {
+        int start = fieldStarts[field];
+        if (fieldEnds[field] - start != 10 || buffer.get(start + 4) != '-' || buffer.get(start + 7) != '-') {
+            return NO_DATE;
+        }
+
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > lengthOfMonth(year, month)) {
+            return NO_DATE;
+        }
+        return epochDay(year, month, day);
+    }
+
+    public LocalDate getDate(int field) {
+        long epochDay = getEpochDay(field);
+        return epochDay == NO_DATE ? null : LocalDate.ofEpochDay(epochDay);
+    }
+
+    //plain decimals are read as an unscaled long and a scale, keeping the scale written in the file
+    public BigDecimal getDecimal(int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        boolean negative = start < end && buffer.get(start) == '-';
+        int i = negative ? start + 1 : start;
+
+        long unscaled = 0;
+        int digitCount = 0;
+        int scale = 0;
+        boolean fraction = false;
+        for (; i < end; i++) {
+            byte b = buffer.get(i);
+            if (b == '.' && !fraction) {
+                fraction = true;
+            } else if (b >= '0' && b <= '9' && digitCount < MAX_FIXED_POINT_DIGITS) {
+                unscaled = unscaled * 10 + (b - '0');
+                digitCount++;
+                if (fraction) {
+                    scale++;
+                }
+            } else {
+                //exponents, stray characters and very long values take the slow path, which also reports errors
+                return new BigDecimal(getString(field).trim());
+            }
+        }
+
+        if (digitCount == 0) {
+            return new BigDecimal(getString(field).trim());
+        }
+        return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+    }
+
+    //only "true" is true, ignoring surrounding spaces
+    public boolean getBoolean(int field) {
+        int start = fieldStarts[field];
+        int end = fieldEnds[field];
+        while (start < end && buffer.get(start) <= ' ') {
+            start++;
+        }
+        while (end > start && buffer.get(end - 1) <= ' ') {
+            end--;
+        }
+        return end - start == 4
+                && buffer.get(start) == 't'
+                && buffer.get(start + 1) == 'r'
+                && buffer.get(start + 2) == 'u'
+                && buffer.get(start + 3) == 'e';
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (channel != null) {
+            channel.close();
+        }
+    }
+
+    private void splitRow() {
+        fieldCount = 0;
+        int start = rowStart;
+        for (int i = rowStart; i < rowEnd; i++) {
+            if (buffer.get(i) == DELIMITER) {
+                addField(start, i);
+                start = i + 1;
+            }
+        }
+        addField(start, rowEnd);
+    }
+
+    private void addField(int start, int end) {
+        if (fieldCount == fieldStarts.length) {
+            int[] starts = new int[fieldCount * 2];
+            int[] ends = new int[fieldCount * 2];
+            System.arraycopy(fieldStarts, 0, starts, 0, fieldCount);
+            System.arraycopy(fieldEnds, 0, ends, 0, fieldCount);
+            fieldStarts = starts;
+            fieldEnds = ends;
+        }
+        fieldStarts[fieldCount] = start;
+        fieldEnds[fieldCount] = end;
+        fieldCount++;
+    }
+
+    private int indexOfNewline(int from) {
+        for (int i = from; i < limit; i++) {
+            if (buffer.get(i) == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //moves the unread tail to the front, growing the buffer when a single row does not fit, then reads more
+    private void fill() throws IOException {
+        byte[] array = buffer.array();
+        int remaining = limit - position;
+        if (position == 0 && limit == array.length) {
+            byte[] grown = new byte[array.length * 2];
+            System.arraycopy(array, 0, grown, 0, limit);
+            buffer = ByteBuffer.wrap(grown);
+            array = grown;
+        } else {
+            System.arraycopy(array, position, array, 0, remaining);
+        }
+        position = 0;
+        limit = remaining;
+
+        buffer.limit(array.length);
+        buffer.position(limit);
+        int read = channel.read(buffer);
+        while (read == 0) {
+            read = channel.read(buffer);
+        }
+        if (read < 0) {
+            endOfInput = true;
+        } else {
+            limit += read;
+        }
+    }
+
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    private static int lengthOfMonth(int year, int month) {
+        switch (month) {
+            case 2:
+                boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+                return leap ? 29 : 28;
+            case 4:
+            case 6:
+            case 9:
+            case 11:
+                return 30;
+            default:
+                return 31;
+        }
+    }
+
+    //days from civil, proleptic Gregorian like LocalDate
+    private static long epochDay(int year, int month, int day) {
+        long y = month <= 2 ? year - 1 : year;
+        long era = Math.floorDiv(y, 400);
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
+    }
+}
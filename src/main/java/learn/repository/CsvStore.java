@@ -0,0 +1,387 @@
+package learn.repository;
+
+import learn.models.User;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.UnaryOperator;
+
+//the cached csv behind the host and guest repositories: rows indexed by email and id, reloaded when the csv or
+//its log changes on disk, written through an atomic rewrite or, in write-ahead log mode, one appended record
+//callers only ever get copies of the cached rows, so editing a returned row can't change the cache without a write
+public class CsvStore<T extends User> {
+
+    public interface RowReader<T> {
+        //the row's first field is at offset, log records carry their row index in front of it
+        T read(CsvReader reader, int offset);
+    }
+
+    public interface Exporter<T> {
+        void export(List<T> rows) throws DataAccessException;
+    }
+
+    //the log is folded into the csv once it grows past this
+    private static final long COMPACTION_THRESHOLD = 256 * 1024;
+
+    private final Path path;
+    private final String header;
+    private final RowReader<T> rowReader;
+    private final Function<T, String> serializer;
+    private final Exporter<T> exporter;
+    private final UnaryOperator<T> copier;
+
+    //rows as of the last load or write, reloaded when the file's mtime or size changes
+    private List<T> cache;
+    //lower-cased email -> position in cache, preferring a live row over a soft-deleted one
+    private Map<String, Integer> emailIndex;
+    //lower-cased id -> position in cache, soft-deleted rows included so old reservations can still be joined
+    private Map<String, Integer> idIndex;
+    private FileTime cacheModifiedTime;
+    private long cacheSize = -1;
+    //bumped every time the cached rows change
+    private long version;
+    //null unless the store runs in write-ahead log mode
+    private final WriteAheadLog log;
+    private long cacheLogSize;
+    private boolean compactionScheduled;
+    //taken before the store lock, so two compactions never trim the same records from the log
+    private final Object compactionLock = new Object();
+
+    //with writeAheadLog, each change appends one record to <filePath>.log instead of rewriting the csv
+    public CsvStore(String filePath, String header, RowReader<T> rowReader, Function<T, String> serializer,
+                    Exporter<T> exporter, UnaryOperator<T> copier, boolean writeAheadLog) {
+        this.path = Paths.get(filePath);
+        this.header = header;
+        this.rowReader = rowReader;
+        this.serializer = serializer;
+        this.exporter = exporter;
+        this.copier = copier;
+        this.log = writeAheadLog ? new WriteAheadLog(Paths.get(filePath + ".log"), false) : null;
+    }
+
+    public synchronized T findByEmail(String email) throws DataAccessException {
+        if (email == null) {
+            return null;
+        }
+
+        load();
+        Integer index = emailIndex.get(normalize(email));
+        if (index == null || cache.get(index).isDeleted()) {
+            return null;
+        }
+        return copier.apply(cache.get(index));
+    }
+
+    public synchronized T findById(String id) throws DataAccessException {
+        if (id == null) {
+            return null;
+        }
+
+        load();
+        Integer index = idIndex.get(normalize(id));
+        return index == null ? null : copier.apply(cache.get(index));
+    }
+
+    public synchronized List<T> findAll() throws DataAccessException {
+        List<T> rows = load();
+        List<T> copies = new ArrayList<>(rows.size());
+        for (T row : rows) {
+            copies.add(copier.apply(row));
+        }
+        return copies;
+    }
+
+    public synchronized long getVersion() throws DataAccessException {
+        load();
+        return version;
+    }
+
+    //the row's id is already set; the cache keeps its own copy
+    public synchronized T add(T row) throws DataAccessException {
+        return FileLocks.writeLocked(path, () -> {
+            List<T> all = new ArrayList<>(load());
+            all.add(copier.apply(row));
+            persist(all, all.size() - 1);
+            indexEmail(all.size() - 1);
+            indexId(all.size() - 1);
+            return row;
+        });
+    }
+
+    //replaces the row with the same email, keeping its id
+    public synchronized boolean update(T row) throws DataAccessException {
+        if (row.getEmail() == null) {
+            return false;
+        }
+
+        return FileLocks.writeLocked(path, () -> {
+            List<T> all = new ArrayList<>(load());
+            Integer index = emailIndex.get(normalize(row.getEmail()));
+            if (index == null) {
+                return false;
+            }
+
+            row.setId(all.get(index).getId());
+            all.set(index, copier.apply(row));
+            persist(all, index);
+            return true;
+        });
+    }
+
+    public synchronized boolean deleteByEmail(String email) throws DataAccessException {
+        if (email == null) {
+            return false;
+        }
+
+        return FileLocks.writeLocked(path, () -> {
+            List<T> all = new ArrayList<>(load());
+            Integer index = emailIndex.get(normalize(email));
+            if (index == null || all.get(index).isDeleted()) {
+                return false;
+            }
+
+            //the deleted row is a new object, a reader still holding the old list keeps seeing it live
+            T deleted = copier.apply(all.get(index));
+            deleted.setDeleted(true);
+            all.set(index, deleted);
+            persist(all, index);
+            return true;
+        });
+    }
+
+    //folds the log into a new csv; the csv is written without holding the lock, so writers only wait for the swap
+    public void compact() throws DataAccessException {
+        if (log == null) {
+            return;
+        }
+
+        synchronized (compactionLock) {
+            List<T> snapshot;
+            long logLength;
+            FileTime snapshotModifiedTime;
+            long snapshotSize;
+            synchronized (this) {
+                snapshot = new ArrayList<>(load());
+                logLength = cacheLogSize;
+                snapshotModifiedTime = cacheModifiedTime;
+                snapshotSize = cacheSize;
+            }
+            if (logLength == 0) {
+                return;
+            }
+
+            Path temp = WriteAheadLog.writeTemp(path, header, snapshot, serializer);
+            synchronized (this) {
+                FileLocks.writeLocked(path, () -> {
+                    //another process compacted or rewrote the csv first, so the log no longer starts where the
+                    //snapshot expects and the cache holds rows that are no longer on disk
+                    if (!isUnchanged(snapshotModifiedTime, snapshotSize)) {
+                        WriteAheadLog.discard(temp);
+                        cache = null;
+                        return null;
+                    }
+                    //records another process appended since the last load survive the trim but aren't cached yet
+                    boolean logCached = log.length() == cacheLogSize;
+                    WriteAheadLog.replace(temp, path);
+                    log.removeFirst(logLength);
+                    if (logCached) {
+                        stampFile();
+                        cacheLogSize = log.length();
+                    } else {
+                        cache = null;
+                    }
+                    return null;
+                });
+            }
+        }
+    }
+
+    private List<T> load() throws DataAccessException {
+        if (cache == null || isStale()) {
+            //checked again under the lock, which keeps a writer in another process from changing the files mid-read
+            FileLocks.readLocked(path, () -> {
+                if (cache == null || isStale()) {
+                    reload();
+                }
+                return null;
+            });
+        }
+        return cache;
+    }
+
+    private boolean isStale() throws DataAccessException {
+        FileTime modifiedTime = null;
+        long size = -1;
+        try {
+            modifiedTime = Files.getLastModifiedTime(path);
+            size = Files.size(path);
+        } catch (NoSuchFileException ex) {
+            //no csv yet, though a log may already hold rows
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+        long logSize = log == null ? 0 : log.length();
+        return !Objects.equals(modifiedTime, cacheModifiedTime) || size != cacheSize || logSize != cacheLogSize;
+    }
+
+    private void reload() throws DataAccessException {
+        FileTime modifiedTime = null;
+        long size = -1;
+        try {
+            modifiedTime = Files.getLastModifiedTime(path);
+            size = Files.size(path);
+        } catch (NoSuchFileException ex) {
+            //read as empty
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+
+        List<T> rows = modifiedTime == null ? new ArrayList<>() : readAll();
+        if (log != null) {
+            log.replay((index, reader) -> replayRow(rows, index, rowReader.read(reader, 1)));
+        }
+        cache = rows;
+        version++;
+        cacheModifiedTime = modifiedTime;
+        cacheSize = size;
+        cacheLogSize = log == null ? 0 : log.length();
+
+        emailIndex = new HashMap<>();
+        idIndex = new HashMap<>();
+        for (int i = 0; i < cache.size(); i++) {
+            indexEmail(i);
+            indexId(i);
+        }
+    }
+
+    private void replayRow(List<T> rows, int index, T row) throws DataAccessException {
+        if (index == rows.size()) {
+            rows.add(row);
+        } else if (index >= 0 && index < rows.size()) {
+            rows.set(index, row);
+        } else {
+            throw new DataAccessException("Log record for row " + index + " does not follow " + path);
+        }
+    }
+
+    //parses straight out of a mapping of the file; load() only gets here when the mtime or size changed
+    private List<T> readAll() throws DataAccessException {
+        ArrayList<T> rows = new ArrayList<>();
+        try (CsvReader reader = CsvReader.mapped(path)) {
+
+            reader.nextRow();
+
+            while (reader.nextRow()) {
+                if (!reader.isBlank()) {
+                    rows.add(rowReader.read(reader, 0));
+                }
+            }
+        } catch (NoSuchFileException ex) {
+            //do nothing
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+        return rows;
+    }
+
+    private void indexEmail(int index) {
+        String key = normalize(cache.get(index).getEmail());
+        Integer existing = emailIndex.get(key);
+        if (existing == null || cache.get(existing).isDeleted()) {
+            emailIndex.put(key, index);
+        }
+    }
+
+    //first row wins, as the old linear search did
+    private void indexId(int index) {
+        String id = cache.get(index).getId();
+        if (id != null) {
+            idIndex.putIfAbsent(normalize(id), index);
+        }
+    }
+
+    private String normalize(String key) {
+        return key.toLowerCase(Locale.ROOT);
+    }
+
+    private void writeAll(List<T> rows) throws DataAccessException {
+        try {
+            WriteAheadLog.writeAtomically(path, header, rows, serializer);
+        } catch (DataAccessException ex) {
+            cache = null;
+            throw ex;
+        }
+
+        cache = new ArrayList<>(rows);
+        version++;
+        stampFile();
+        exporter.export(rows);
+    }
+
+    //in log mode only the changed row is written; compact() rewrites the csv later
+    private void persist(List<T> all, int index) throws DataAccessException {
+        if (log == null) {
+            writeAll(all);
+            return;
+        }
+
+        try {
+            log.append(index, serializer.apply(all.get(index)));
+        } catch (DataAccessException ex) {
+            cache = null;
+            throw ex;
+        }
+        cache = all;
+        version++;
+        cacheLogSize = log.length();
+        exporter.export(all);
+
+        if (cacheLogSize >= COMPACTION_THRESHOLD && !compactionScheduled) {
+            compactionScheduled = true;
+            log.scheduleCompaction(this::compactInBackground);
+        }
+    }
+
+    private boolean isUnchanged(FileTime modifiedTime, long size) throws DataAccessException {
+        try {
+            return Files.getLastModifiedTime(path).equals(modifiedTime) && Files.size(path) == size;
+        } catch (NoSuchFileException ex) {
+            return modifiedTime == null;
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+    }
+
+    private void compactInBackground() {
+        try {
+            compact();
+        } catch (DataAccessException ex) {
+            //the log stays in place and the next write past the threshold tries again
+        } finally {
+            synchronized (this) {
+                compactionScheduled = false;
+            }
+        }
+    }
+
+    private void stampFile() {
+        try {
+            cacheModifiedTime = Files.getLastModifiedTime(path);
+            cacheSize = Files.size(path);
+        } catch (IOException ex) {
+            //forces a reload on the next read
+            cache = null;
+        }
+    }
+}
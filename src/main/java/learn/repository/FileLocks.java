@@ -0,0 +1,140 @@
+package learn.repository;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+//guards a data file against other threads and other processes
+//threads meet on one of a fixed set of striped read-write locks picked by the file's path, so readers of a file
+//don't wait on each other and files on different stripes never wait at all; processes meet on a FileChannel lock
+//of <data file>.lock. FileChannel locks belong to the whole JVM, which is why the in-JVM stripe is taken first,
+//and why a file's concurrent readers share one shared FileChannel lock between them
+public final class FileLocks {
+
+    public interface Action<T> {
+        T run() throws DataAccessException;
+    }
+
+    private static final int STRIPES = 256;
+    private static final ReentrantReadWriteLock[] LOCKS = new ReentrantReadWriteLock[STRIPES];
+    //lock file -> whether this thread holds it exclusively, so nested calls don't lock the same file twice
+    private static final ThreadLocal<Map<Path, Boolean>> HELD = ThreadLocal.withInitial(HashMap::new);
+    //lock file -> the shared FileChannel lock this JVM's readers of it hold together
+    private static final Map<Path, SharedLock> SHARED = new ConcurrentHashMap<>();
+
+    //open while any thread of this JVM reads the file, the last reader out closes it
+    private static class SharedLock {
+        private FileChannel channel;
+        private int readers;
+    }
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            LOCKS[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    private FileLocks() {
+    }
+
+    //other processes may read at the same time, but not write
+    public static <T> T readLocked(Path dataFile, Action<T> action) throws DataAccessException {
+        return locked(dataFile, false, action);
+    }
+
+    public static <T> T writeLocked(Path dataFile, Action<T> action) throws DataAccessException {
+        return locked(dataFile, true, action);
+    }
+
+    public static Path getLockPath(Path dataFile) {
+        Path absolute = dataFile.toAbsolutePath().normalize();
+        return absolute.resolveSibling(absolute.getFileName() + ".lock");
+    }
+
+    private static <T> T locked(Path dataFile, boolean exclusive, Action<T> action) throws DataAccessException {
+        Path lockPath = getLockPath(dataFile);
+        Map<Path, Boolean> held = HELD.get();
+        Boolean heldExclusive = held.get(lockPath);
+        if (heldExclusive != null) {
+            if (exclusive && !heldExclusive) {
+                throw new DataAccessException("Cannot write " + dataFile + " while only holding its read lock.");
+            }
+            return action.run();
+        }
+
+        //a read stripe can't be upgraded, so nothing write-locks one file while reading another
+        ReentrantReadWriteLock stripe = LOCKS[(lockPath.hashCode() & 0x7fffffff) % STRIPES];
+        Lock stripeLock = exclusive ? stripe.writeLock() : stripe.readLock();
+        stripeLock.lock();
+        try {
+            if (exclusive) {
+                try (FileChannel channel = open(lockPath)) {
+                    //released when the channel closes
+                    channel.lock();
+                    return runHolding(lockPath, true, action);
+                }
+            }
+
+            SharedLock shared = SHARED.computeIfAbsent(lockPath, path -> new SharedLock());
+            acquire(lockPath, shared);
+            try {
+                return runHolding(lockPath, false, action);
+            } finally {
+                release(shared);
+            }
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        } finally {
+            stripeLock.unlock();
+        }
+    }
+
+    private static <T> T runHolding(Path lockPath, boolean exclusive, Action<T> action) throws DataAccessException {
+        Map<Path, Boolean> held = HELD.get();
+        held.put(lockPath, exclusive);
+        try {
+            return action.run();
+        } finally {
+            held.remove(lockPath);
+        }
+    }
+
+    //the first reader waits for other processes' writers, the rest join the lock it got
+    private static void acquire(Path lockPath, SharedLock shared) throws IOException {
+        synchronized (shared) {
+            if (shared.readers == 0) {
+                FileChannel channel = open(lockPath);
+                try {
+                    channel.lock(0, Long.MAX_VALUE, true);
+                } catch (IOException | RuntimeException ex) {
+                    channel.close();
+                    throw ex;
+                }
+                shared.channel = channel;
+            }
+            shared.readers++;
+        }
+    }
+
+    private static void release(SharedLock shared) throws IOException {
+        synchronized (shared) {
+            shared.readers--;
+            if (shared.readers == 0) {
+                FileChannel channel = shared.channel;
+                shared.channel = null;
+                channel.close();
+            }
+        }
+    }
+
+    private static FileChannel open(Path lockPath) throws IOException {
+        return FileChannel.open(lockPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+    }
+}
@@ -4,8 +4,7 @@ import learn.models.Guest;
 import learn.models.User;
 import learn.repository.convertToJSON.GuestToJSONRepository;
 
-import java.io.*;
-import java.util.ArrayList;
+import java.nio.file.Paths;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -13,41 +12,41 @@ public class GuestFileRepository implements GuestRepository{
 
     private static final String HEADER = "guest_id,first_name,last_name,email,phone,state";
     private final String filePath;
-    private final GuestToJSONRepository guestToJSONRepository;
     private static final String DELIMITER = ",";
     private static final String DELIMITER_REPLACEMENT = "@@@";
+    private static final int ID_BLOCK_SIZE = 16;
+    private final IdSequence idSequence;
+    private final CsvStore<Guest> store;
 
     public GuestFileRepository(String filePath, GuestToJSONRepository guestToJSONRepository) {
+        this(filePath, guestToJSONRepository, false);
+    }
+
+    //with writeAheadLog, each change appends one record to <filePath>.log instead of rewriting the csv
+    public GuestFileRepository(String filePath, GuestToJSONRepository guestToJSONRepository, boolean writeAheadLog) {
         this.filePath = filePath;
-        this.guestToJSONRepository = guestToJSONRepository;
+        this.store = new CsvStore<>(filePath, HEADER, this::deserialized, this::serialized,
+                guestToJSONRepository::writeToJSON, this::copy, writeAheadLog);
+        this.idSequence = new IdSequence(Paths.get(getSequencePath()), ID_BLOCK_SIZE, this::findHighestId);
+    }
+
+    public String getSequencePath() {
+        return filePath + ".seq";
     }
 
     @Override
     public Guest findByEmail(String email) throws DataAccessException {
-        return findAllNotDeleted().stream()
-                .filter(g -> g.getEmail().equalsIgnoreCase(email))
-                .findFirst().orElse(null);
+        return store.findByEmail(email);
     }
 
     @Override
-    public List<Guest> findAll() throws DataAccessException {
-        ArrayList<Guest> guests = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-
-            reader.readLine();
+    public Guest findById(String id) throws DataAccessException {
+        return store.findById(id);
+    }
 
-            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-                if (!line.isBlank()) {
-                    Guest guest = deserialized(line);
-                    guests.add(guest);
-                }
-            }
-        } catch (FileNotFoundException ex) {
-            //do nothing
-        } catch (IOException ex) {
-            throw new DataAccessException(ex.getMessage());
-        }
-        return guests;
+    @Override
+    public List<Guest> findAll() throws DataAccessException {
+        return store.findAll();
     }
 
     @Override
@@ -64,11 +63,8 @@ public class GuestFileRepository implements GuestRepository{
         }
 
         Guest guest = createGuestFromUser(user);
-
-        List<Guest> all = findAll();
-        all.add(guest);
-        writeAll(all);
-        return guest;
+        guest.setId(String.valueOf(idSequence.nextId()));
+        return store.add(guest);
     }
 
     @Override
@@ -76,45 +72,21 @@ public class GuestFileRepository implements GuestRepository{
         if (user == null) {
             return false;
         }
-
-        Guest guest = createGuestFromUser(user);
-
-        List<Guest> all = findAll();
-        for (int i = 0; i < all.size(); i++) {
-            if (all.get(i).getEmail().equalsIgnoreCase(guest.getEmail())) {
-                all.set(i, guest);
-                writeAll(all);
-                return true;
-            }
-        }
-        return false;
+        return store.update(createGuestFromUser(user));
     }
 
     @Override
     public boolean deleteByEmail(String email) throws DataAccessException {
-        List<Guest> all = findAllNotDeleted();
-        for (int i = 0; i < all.size(); i++) {
-            if (all.get(i).getEmail().equalsIgnoreCase(email)) {
-                Guest guest = all.get(i);
-                guest.setDeleted(true);
-                all.set(i, guest);
-                writeAll(all);
-                return true;
-            }
-        }
-        return false;
+        return store.deleteByEmail(email);
     }
 
     public Guest createGuestFromUser(User user) throws DataAccessException {
         Guest guest = new Guest();
 
-        List<Guest> all = findAll();
-        int nextId = all.size();
-        String guestId = String.format("%s", nextId);
-
-        guest.setId(guestId);
-        String[] nameFields = user.getFullName().split(DELIMITER, -1);
-        guest.setFirstName(nameFields[0].replace(DELIMITER_REPLACEMENT, DELIMITER));
+        //a guest carries its first name, only a plain user has it folded into the "first,last" full name
+        String firstName = user instanceof Guest ? ((Guest) user).getFirstName()
+                : user.getFullName().split(DELIMITER, -1)[0];
+        guest.setFirstName(firstName.replace(DELIMITER_REPLACEMENT, DELIMITER));
         guest.setLastName(user.getLastName().replace(DELIMITER_REPLACEMENT, DELIMITER));
         guest.setEmail(user.getEmail());
         guest.setPhone(user.getPhone());
@@ -124,6 +96,19 @@ public class GuestFileRepository implements GuestRepository{
         return guest;
     }
 
+    //only consulted the first time, before the sequence file exists
+    private long findHighestId() throws DataAccessException {
+        long highest = 0;
+        for (Guest guest : store.findAll()) {
+            try {
+                highest = Math.max(highest, Long.parseLong(guest.getId()));
+            } catch (NumberFormatException ex) {
+                //non-numeric ids can't collide with generated ones
+            }
+        }
+        return highest;
+    }
+
     private String serialized(Guest guest) {
         StringBuilder builder = new StringBuilder(100);
 
@@ -139,34 +124,38 @@ public class GuestFileRepository implements GuestRepository{
         return builder.toString();
     }
 
-    private Guest deserialized(String line) {
-        String[] fields = line.split(DELIMITER);
+    private Guest deserialized(CsvReader reader, int offset) {
         Guest guest = new Guest();
 
-        guest.setId(fields[0]);
-        guest.setFirstName(fields[1]);
-        guest.setLastName(fields[2]);
-        guest.setEmail(fields[3]);
-        guest.setPhone(fields[4]);
-        guest.setState(fields[5]);
-        guest.setDeleted(fields[6].equals("true"));
+        guest.setId(reader.getString(offset));
+        guest.setFirstName(reader.getString(offset + 1));
+        guest.setLastName(reader.getString(offset + 2));
+        guest.setEmail(reader.getString(offset + 3));
+        guest.setPhone(reader.getString(offset + 4));
+        guest.setState(reader.getString(offset + 5));
+        guest.setDeleted(reader.getBoolean(offset + 6));
 
         return guest;
     }
 
-    private void writeAll(List<Guest> guests) throws DataAccessException {
-        try (PrintWriter writer = new PrintWriter(filePath)) {
-
-            writer.println(HEADER);
+    private Guest copy(Guest guest) {
+        Guest copy = new Guest();
+        copy.setId(guest.getId());
+        copy.setFirstName(guest.getFirstName());
+        copy.setLastName(guest.getLastName());
+        copy.setEmail(guest.getEmail());
+        copy.setPhone(guest.getPhone());
+        copy.setState(guest.getState());
+        copy.setDeleted(guest.isDeleted());
+        return copy;
+    }
 
-            for (Guest g : guests) {
-                writer.println(serialized(g));
-            }
+    public void compact() throws DataAccessException {
+        store.compact();
+    }
 
-        } catch (FileNotFoundException ex) {
-            throw new DataAccessException(ex.getMessage());
-        }
-        guestToJSONRepository.writeToJSON(guests);
+    public void close() throws DataAccessException {
+        store.compact();
     }
 
     private String cleanField(String field) {
@@ -8,6 +8,8 @@ import java.util.List;
 public interface GuestRepository {
     Guest findByEmail(String email) throws DataAccessException;
 
+    Guest findById(String id) throws DataAccessException;
+
     List<Guest> findAll() throws DataAccessException;
 
     List<Guest> findAllNotDeleted() throws DataAccessException;
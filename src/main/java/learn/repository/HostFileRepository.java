@@ -4,51 +4,39 @@ import learn.models.Host;
 import learn.models.User;
 import learn.repository.convertToJSON.HostToJSONRepository;
 
-import java.io.*;
-import java.math.BigDecimal;
-import java.util.ArrayList;
 import java.util.List;
 import java.util.stream.Collectors;
 
 public class HostFileRepository implements HostRepository {
 
     private static final String HEADER = "id,last_name,email,phone,address,city,state,postal_code,standard_rate,weekend_rate";
-    private final String filePath;
-    private final HostToJSONRepository hostToJSONRepository;
     private static final String DELIMITER = ",";
     private static final String DELIMITER_REPLACEMENT = "@@@";
+    private final CsvStore<Host> store;
 
     public HostFileRepository(String filePath, HostToJSONRepository hostToJSONRepository) {
-        this.filePath = filePath;
-        this.hostToJSONRepository = hostToJSONRepository;
+        this(filePath, hostToJSONRepository, false);
+    }
+
+    //with writeAheadLog, each change appends one record to <filePath>.log instead of rewriting the csv
+    public HostFileRepository(String filePath, HostToJSONRepository hostToJSONRepository, boolean writeAheadLog) {
+        this.store = new CsvStore<>(filePath, HEADER, this::deserialized, this::serialized,
+                hostToJSONRepository::writeToJSON, this::copy, writeAheadLog);
     }
 
     @Override
     public Host findByEmail(String email) throws DataAccessException {
-        return findAllNotDeleted().stream()
-                .filter(h -> h.getEmail().equalsIgnoreCase(email))
-                .findFirst().orElse(null);
+        return store.findByEmail(email);
+    }
+
+    @Override
+    public Host findById(String id) throws DataAccessException {
+        return store.findById(id);
     }
 
     @Override
     public List<Host> findAll() throws DataAccessException {
-        ArrayList<Host> hosts = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-
-            reader.readLine();
-
-            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-                if (!line.isBlank()) {
-                    Host host = deserialized(line);
-                    hosts.add(host);
-                }
-            }
-        } catch (FileNotFoundException ex) {
-            //do nothing
-        } catch (IOException ex) {
-            throw new DataAccessException(ex.getMessage());
-        }
-        return hosts;
+        return store.findAll();
     }
 
     @Override
@@ -58,6 +46,11 @@ public class HostFileRepository implements HostRepository {
                 .collect(Collectors.toList());
     }
 
+    @Override
+    public long getVersion() throws DataAccessException {
+        return store.getVersion();
+    }
+
     @Override
     public Host add(User user) throws DataAccessException {
         if (user == null) {
@@ -66,11 +59,7 @@ public class HostFileRepository implements HostRepository {
 
         Host host = createHostFromUser(user);
         host.setId(java.util.UUID.randomUUID().toString());
-
-        List<Host> all = findAll();
-        all.add(host);
-        writeAll(all);
-        return host;
+        return store.add(host);
     }
 
     @Override
@@ -78,33 +67,12 @@ public class HostFileRepository implements HostRepository {
         if (user == null) {
             return false;
         }
-
-        Host host = createHostFromUser(user);
-
-        List<Host> all = findAll();
-        for (int i = 0; i < all.size(); i++) {
-            if (all.get(i).getEmail().equalsIgnoreCase(host.getEmail())) {
-                all.set(i, host);
-                writeAll(all);
-                return true;
-            }
-        }
-        return false;
+        return store.update(createHostFromUser(user));
     }
 
     @Override
     public boolean deleteByEmail(String email) throws DataAccessException {
-        List<Host> all = findAllNotDeleted();
-        for (int i = 0; i < all.size(); i++) {
-            if (all.get(i).getEmail().equalsIgnoreCase(email)) {
-                Host host = all.get(i);
-                host.setDeleted(true);
-                all.set(i, host);
-                writeAll(all);
-                return true;
-            }
-        }
-        return false;
+        return store.deleteByEmail(email);
     }
 
     public Host createHostFromUser(User user) {
@@ -126,23 +94,22 @@ public class HostFileRepository implements HostRepository {
         return host;
     }
 
-    private Host deserialized(String line) {
-        String[] fields = line.split(DELIMITER);
+    private Host deserialized(CsvReader reader, int offset) {
         Host host = new Host();
 
-        host.setId(fields[0]);
-        host.setLastName(fields[1].replace(DELIMITER_REPLACEMENT, DELIMITER));
-        host.setEmail(fields[2]);
-        host.setPhone(fields[3]);
+        host.setId(reader.getString(offset));
+        host.setLastName(reader.getString(offset + 1).replace(DELIMITER_REPLACEMENT, DELIMITER));
+        host.setEmail(reader.getString(offset + 2));
+        host.setPhone(reader.getString(offset + 3));
 
-        host.setAddress(fields[4].replace(DELIMITER_REPLACEMENT, DELIMITER));
-        host.setCity(fields[5].replace(DELIMITER_REPLACEMENT, DELIMITER));
-        host.setState(fields[6]);
-        host.setPostalCode(fields[7]);
+        host.setAddress(reader.getString(offset + 4).replace(DELIMITER_REPLACEMENT, DELIMITER));
+        host.setCity(reader.getString(offset + 5).replace(DELIMITER_REPLACEMENT, DELIMITER));
+        host.setState(reader.getString(offset + 6));
+        host.setPostalCode(reader.getString(offset + 7));
 
-        host.setStandardRate(BigDecimal.valueOf(Double.parseDouble(fields[8])));
-        host.setWeekendRate(BigDecimal.valueOf(Double.parseDouble(fields[9])));
-        host.setDeleted(fields[10].equals("true"));
+        host.setStandardRate(reader.getDecimal(offset + 8));
+        host.setWeekendRate(reader.getDecimal(offset + 9));
+        host.setDeleted(reader.getBoolean(offset + 10));
 
         return host;
     }
@@ -167,17 +134,28 @@ public class HostFileRepository implements HostRepository {
         return builder.toString();
     }
 
-    private void writeAll(List<Host> hosts) throws DataAccessException {
-        try (PrintWriter writer = new PrintWriter(filePath)) {
-            writer.println(HEADER);
+    private Host copy(Host host) {
+        Host copy = new Host();
+        copy.setId(host.getId());
+        copy.setLastName(host.getLastName());
+        copy.setEmail(host.getEmail());
+        copy.setPhone(host.getPhone());
+        copy.setAddress(host.getAddress());
+        copy.setCity(host.getCity());
+        copy.setState(host.getState());
+        copy.setPostalCode(host.getPostalCode());
+        copy.setStandardRate(host.getStandardRate());
+        copy.setWeekendRate(host.getWeekendRate());
+        copy.setDeleted(host.isDeleted());
+        return copy;
+    }
 
-            for (Host h : hosts) {
-                writer.println(serialized(h));
-            }
-        } catch (FileNotFoundException ex) {
-            throw new DataAccessException(ex.getMessage());
-        }
-        hostToJSONRepository.writeToJSON(hosts);
+    public void compact() throws DataAccessException {
+        store.compact();
+    }
+
+    public void close() throws DataAccessException {
+        store.compact();
     }
 
     private String cleanField(String field) {
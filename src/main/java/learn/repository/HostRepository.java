@@ -8,6 +8,8 @@ import java.util.List;
 public interface HostRepository {
     Host findByEmail(String email) throws DataAccessException;
 
+    Host findById(String id) throws DataAccessException;
+
     List<Host> findAll() throws DataAccessException;
 
     List<Host> findAllNotDeleted() throws DataAccessException;
@@ -18,4 +20,9 @@ public interface HostRepository {
 
     boolean deleteByEmail(String email) throws DataAccessException;
 
+    //changes whenever the stored hosts do, so callers can tell when something built from them is out of date
+    //-1 means the repository can't tell and anything derived should be rebuilt
+    default long getVersion() throws DataAccessException {
+        return -1;
+    }
 }
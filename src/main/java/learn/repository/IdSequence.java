@@ -0,0 +1,125 @@
+package learn.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+//hi/lo id allocator backed by a small sidecar file holding the next unreserved id
+//each process reserves a block under a file lock and hands ids out of it from memory,
+//so concurrent writers never collide and a crash only leaves a gap
+public class IdSequence {
+
+    public interface Seed {
+        //highest id already in use, read only when the sidecar does not exist yet
+        long findHighestId() throws DataAccessException;
+    }
+
+    //fixed width so the high-water mark is rewritten in place with a single write
+    private static final int RECORD_LENGTH = 20;
+    //FileChannel.lock is per process, this keeps two sequences on one file in the same JVM from overlapping
+    private static final ConcurrentHashMap<Path, Object> FILE_MONITORS = new ConcurrentHashMap<>();
+
+    private final Path path;
+    private final int blockSize;
+    private final Seed seed;
+    private long next;
+    private long blockEnd;
+
+    public IdSequence(Path path, int blockSize, Seed seed) {
+        this.path = path.toAbsolutePath().normalize();
+        this.blockSize = blockSize;
+        this.seed = seed;
+    }
+
+    public synchronized long nextId() throws DataAccessException {
+        if (next >= blockEnd) {
+            reserveBlock(blockSize);
+        }
+        return next++;
+    }
+
+    //the first of count consecutive ids, reserving one bigger block when what is left of this one is too short
+    public synchronized long nextIds(int count) throws DataAccessException {
+        if (blockEnd - next < count) {
+            reserveBlock(Math.max(blockSize, count));
+        }
+        long first = next;
+        next += count;
+        return first;
+    }
+
+    //for rows written without taking ids from the sequence, such as an import: moves the high-water mark past
+    //highestId and drops what is left of this process's block if the rows reached into it
+    public synchronized void advancePast(long highestId) throws DataAccessException {
+        synchronized (FILE_MONITORS.computeIfAbsent(path, p -> new Object())) {
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                //released when the channel closes
+                channel.lock();
+
+                long highWaterMark = readHighWaterMark(channel);
+                if (highWaterMark >= 0 && highWaterMark <= highestId) {
+                    writeHighWaterMark(channel, highestId + 1);
+                }
+                //with no sidecar yet the seed reads the rows on the next reservation
+            } catch (IOException | NumberFormatException ex) {
+                throw new DataAccessException(ex.getMessage());
+            }
+        }
+        if (next <= highestId) {
+            next = 0;
+            blockEnd = 0;
+        }
+    }
+
+    private void reserveBlock(int size) throws DataAccessException {
+        synchronized (FILE_MONITORS.computeIfAbsent(path, p -> new Object())) {
+            try (FileChannel channel = FileChannel.open(path,
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                //released when the channel closes
+                channel.lock();
+
+                long highWaterMark = readHighWaterMark(channel);
+                if (highWaterMark < 0) {
+                    highWaterMark = Math.max(1, seed.findHighestId() + 1);
+                }
+
+                long newHighWaterMark = highWaterMark + size;
+                writeHighWaterMark(channel, newHighWaterMark);
+
+                next = highWaterMark;
+                blockEnd = newHighWaterMark;
+            } catch (IOException | NumberFormatException ex) {
+                throw new DataAccessException(ex.getMessage());
+            }
+        }
+    }
+
+    private void writeHighWaterMark(FileChannel channel, long highWaterMark) throws IOException {
+        String record = String.format("%0" + RECORD_LENGTH + "d", highWaterMark);
+        ByteBuffer buffer = ByteBuffer.wrap(record.getBytes(StandardCharsets.US_ASCII));
+        int position = 0;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        channel.force(true);
+    }
+
+    private long readHighWaterMark(FileChannel channel) throws IOException {
+        if (channel.size() < RECORD_LENGTH) {
+            return -1;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(RECORD_LENGTH);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, buffer.position()) < 0) {
+                return -1;
+            }
+        }
+        return Long.parseLong(new String(buffer.array(), StandardCharsets.US_ASCII));
+    }
+}
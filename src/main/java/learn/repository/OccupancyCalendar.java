@@ -0,0 +1,153 @@
+package learn.repository;
+
+import learn.models.Reservation;
+
+import java.time.LocalDate;
+import java.util.List;
+
+//one host's booked nights as a bitmap, bit i set when the night starting on origin + i is taken
+//the horizon rolls with the calendar day: a calendar built on an earlier day is no longer current and gets rebuilt
+//2 years is 12 longs per host, so 100k hosts stay in the tens of megabytes with their map entries
+public class OccupancyCalendar {
+
+    public static final int HORIZON_DAYS = 732;
+
+    private final long originDay;
+    private final int days;
+    private final long[] words;
+
+    public OccupancyCalendar(List<Reservation> reservations) {
+        this(LocalDate.now(), HORIZON_DAYS);
+        for (Reservation reservation : reservations) {
+            book(reservation);
+        }
+    }
+
+    public OccupancyCalendar(LocalDate origin, int days) {
+        this.originDay = origin.toEpochDay();
+        this.days = days;
+        this.words = new long[(days + 63) >>> 6];
+    }
+
+    public LocalDate getOrigin() {
+        return LocalDate.ofEpochDay(originDay);
+    }
+
+    public boolean isCurrent() {
+        return originDay == LocalDate.now().toEpochDay();
+    }
+
+    //whether every night of [startDate, endDate) falls inside the horizon, so the bitmap alone can answer for it
+    public boolean covers(LocalDate startDate, LocalDate endDate) {
+        return startDate.toEpochDay() >= originDay && endDate.toEpochDay() <= originDay + days;
+    }
+
+    //nights outside the horizon are dropped, reservations missing a date are skipped
+    public void book(Reservation reservation) {
+        if (reservation.getStartDate() == null || reservation.getEndDate() == null) {
+            return;
+        }
+        book(reservation.getStartDate().toEpochDay(), reservation.getEndDate().toEpochDay());
+    }
+
+    //the nights of [startDay, endDay) as epoch days, for callers that keep dates as days already
+    public synchronized void book(long startDay, long endDay) {
+        int from = toBit(startDay);
+        int to = toBit(endDay);
+        if (from >= to) {
+            return;
+        }
+
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        for (int w = first; w <= last; w++) {
+            words[w] |= mask(w, first, last, from, to);
+        }
+    }
+
+    //only answers for nights inside the horizon, callers check covers first
+    public synchronized boolean isFree(LocalDate startDate, LocalDate endDate) {
+        int from = toBit(startDate);
+        int to = toBit(endDate);
+        if (from >= to) {
+            return true;
+        }
+
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        for (int w = first; w <= last; w++) {
+            if ((words[w] & mask(w, first, last, from, to)) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    //booked nights in [startDate, endDate), counting only the part inside the horizon
+    public synchronized int countBooked(LocalDate startDate, LocalDate endDate) {
+        int from = toBit(startDate);
+        int to = toBit(endDate);
+        if (from >= to) {
+            return 0;
+        }
+
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        int count = 0;
+        for (int w = first; w <= last; w++) {
+            count += Long.bitCount(words[w] & mask(w, first, last, from, to));
+        }
+        return count;
+    }
+
+    //first day on or after from with the given number of free nights ahead of it, null if none fits in the horizon
+    public synchronized LocalDate nextFree(LocalDate from, int nights) {
+        int day = toBit(from);
+        while (day + nights <= days) {
+            int booked = nextBooked(day, day + nights);
+            if (booked < 0) {
+                return LocalDate.ofEpochDay(originDay + day);
+            }
+            day = booked + 1;
+        }
+        return null;
+    }
+
+    //first set bit in [from, to), or -1
+    private int nextBooked(int from, int to) {
+        if (from >= to) {
+            return -1;
+        }
+        int first = from >>> 6;
+        int last = (to - 1) >>> 6;
+        for (int w = first; w <= last; w++) {
+            long bits = words[w] & mask(w, first, last, from, to);
+            if (bits != 0) {
+                return (w << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+        return -1;
+    }
+
+    //bits of word w that lie in [from, to); shifts only use the low 6 bits of from and to
+    private static long mask(int w, int first, int last, int from, int to) {
+        long mask = -1L;
+        if (w == first) {
+            mask &= -1L << from;
+        }
+        if (w == last) {
+            mask &= -1L >>> -to;
+        }
+        return mask;
+    }
+
+    //clamped to the horizon, so a range wholly before or after it comes out empty
+    private int toBit(LocalDate date) {
+        return toBit(date.toEpochDay());
+    }
+
+    private int toBit(long day) {
+        long bit = day - originDay;
+        return (int) Math.max(0, Math.min(days, bit));
+    }
+}
@@ -0,0 +1,87 @@
+package learn.repository;
+
+import learn.domain.pricing.LengthOfStayDiscount;
+import learn.domain.pricing.RateRuleSet;
+import learn.domain.pricing.SeasonalRate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+//reads hosts' pricing rules, one "host_id,rule,start_date,end_date,amount,weekend_amount,nights" row per rule
+//season: start_date to end_date at amount and weekend_amount; holiday: start_date at amount;
+//discount: amount percent off from nights on; minimum_stay: nights. Fields a rule doesn't use are left empty
+public class RateRuleFileRepository {
+
+    private static final int RULE_FIELDS = 7;
+
+    private final String filePath;
+
+    public RateRuleFileRepository(String filePath) {
+        this.filePath = filePath;
+    }
+
+    //host id -> that host's rules, empty when there is no rules file
+    public Map<String, RateRuleSet> findAll() throws DataAccessException {
+        Map<String, RateRuleSet> ruleSets = new HashMap<>();
+        int line = 1;
+        try (CsvReader reader = new CsvReader(Paths.get(filePath))) {
+
+            reader.nextRow();
+
+            while (reader.nextRow()) {
+                line++;
+                if (reader.isBlank()) {
+                    continue;
+                }
+                if (reader.getFieldCount() != RULE_FIELDS) {
+                    throw invalidRule(line);
+                }
+                addRule(ruleSets.computeIfAbsent(reader.getString(0).trim(), id -> new RateRuleSet()), reader, line);
+            }
+        } catch (NoSuchFileException ex) {
+            return ruleSets;
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        } catch (NumberFormatException | ArithmeticException ex) {
+            throw invalidRule(line);
+        }
+        return ruleSets;
+    }
+
+    private void addRule(RateRuleSet ruleSet, CsvReader reader, int line) throws DataAccessException {
+        switch (reader.getString(1).trim()) {
+            case "season":
+                ruleSet.addSeason(new SeasonalRate(getDate(reader, 2, line), getDate(reader, 3, line),
+                        reader.getDecimal(4), reader.getDecimal(5)));
+                break;
+            case "holiday":
+                ruleSet.addHoliday(getDate(reader, 2, line), reader.getDecimal(4));
+                break;
+            case "discount":
+                ruleSet.addDiscount(new LengthOfStayDiscount(reader.getInt(6), reader.getDecimal(4)));
+                break;
+            case "minimum_stay":
+                ruleSet.setMinimumStay(reader.getInt(6));
+                break;
+            default:
+                throw invalidRule(line);
+        }
+    }
+
+    private LocalDate getDate(CsvReader reader, int field, int line) throws DataAccessException {
+        LocalDate date = reader.getDate(field);
+        if (date == null) {
+            throw invalidRule(line);
+        }
+        return date;
+    }
+
+    private DataAccessException invalidRule(int line) {
+        return new DataAccessException("Invalid rate rule on line " + line + " of " + filePath);
+    }
+}
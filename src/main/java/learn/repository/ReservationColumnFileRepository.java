@@ -0,0 +1,310 @@
+package learn.repository;
+
+import learn.models.Reservation;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//keeps each host's reservations in <hostId>.bin as primitive columns instead of text
+//use importCsv/exportCsv to move a ./data/reservations style directory in and out
+public class ReservationColumnFileRepository implements ReservationRepository {
+
+    private static final String EXTENSION = ".bin";
+    private static final String CSV_EXTENSION = ".csv";
+    private static final int ID_BLOCK_SIZE = 16;
+
+    private final String repository;
+    //host id -> columns as of the last read or write through this repository, read again once the host's file
+    //no longer has the mtime and size it had, so writes from other processes show up
+    private final Map<String, CachedColumns> hosts = new HashMap<>();
+    private final Map<String, IdSequence> idSequences = new HashMap<>();
+    private long versions;
+
+    //columns with the stamp of the file they match, a version no other columns of this repository have, and the
+    //calendar built from them on first use
+    private static class CachedColumns {
+        private final ReservationColumns columns;
+        private final FileTime modifiedTime;
+        private final long size;
+        private final long version;
+        private OccupancyCalendar calendar;
+
+        CachedColumns(ReservationColumns columns, BasicFileAttributes attributes, long version) {
+            this.columns = columns;
+            this.modifiedTime = attributes == null ? null : attributes.lastModifiedTime();
+            this.size = attributes == null ? -1 : attributes.size();
+            this.version = version;
+        }
+
+        boolean matches(BasicFileAttributes attributes) {
+            if (attributes == null) {
+                return modifiedTime == null;
+            }
+            return attributes.lastModifiedTime().equals(modifiedTime) && attributes.size() == size;
+        }
+    }
+
+    public ReservationColumnFileRepository(String repository) {
+        this.repository = repository;
+    }
+
+    @Override
+    public synchronized List<Reservation> findById(String id) throws DataAccessException {
+        return load(id).toReservations(id);
+    }
+
+    @Override
+    public synchronized Reservation add(Reservation reservation) throws DataAccessException {
+        if (reservation == null) {
+            return null;
+        }
+
+        if (reservation.getStartDate() == null || reservation.getEndDate() == null || reservation.getHost() == null
+                || reservation.getGuest() == null || reservation.getTotal() == null) {
+            return null;
+        }
+
+        String hostId = reservation.getHost().getId();
+        ReservationColumns columns = load(hostId);
+        int previousId = reservation.getReservationId();
+        reservation.setReservationId(nextReservationId(hostId));
+        try {
+            columns.add(reservation);
+        } catch (DataAccessException ex) {
+            reservation.setReservationId(previousId);
+            throw ex;
+        }
+        write(hostId, columns);
+        return reservation;
+    }
+
+    @Override
+    public synchronized List<Reservation> addAll(String hostId, List<Reservation> reservations)
+            throws DataAccessException {
+        if (reservations.isEmpty()) {
+            return reservations;
+        }
+
+        ReservationColumns columns = load(hostId);
+        long id = getIdSequence(hostId).nextIds(reservations.size());
+        try {
+            for (Reservation reservation : reservations) {
+                reservation.setReservationId(Math.toIntExact(id++));
+                columns.add(reservation);
+            }
+        } catch (DataAccessException ex) {
+            //drop the rows added so far
+            hosts.remove(hostId);
+            throw ex;
+        }
+        write(hostId, columns);
+        return reservations;
+    }
+
+    @Override
+    public synchronized boolean update(Reservation reservation) throws DataAccessException {
+        if (reservation == null) {
+            return false;
+        }
+
+        String hostId = reservation.getHost().getId();
+        ReservationColumns columns = load(hostId);
+        int row = columns.indexOf(reservation.getReservationId());
+        if (row < 0) {
+            return false;
+        }
+
+        columns.set(row, reservation);
+        write(hostId, columns);
+        return true;
+    }
+
+    @Override
+    public synchronized boolean deleteById(String hostId, int reservationId) throws DataAccessException {
+        ReservationColumns columns = load(hostId);
+        int row = columns.indexOf(reservationId);
+        if (row < 0) {
+            return false;
+        }
+
+        columns.remove(row);
+        write(hostId, columns);
+        return true;
+    }
+
+    public synchronized boolean overlaps(String hostId, LocalDate startDate, LocalDate endDate,
+                                         int ignoredReservationId) throws DataAccessException {
+        return load(hostId).overlaps(ReservationColumns.toDay(startDate), ReservationColumns.toDay(endDate),
+                ignoredReservationId);
+    }
+
+    //total booked for stays starting in [from, to)
+    public synchronized BigDecimal getTotal(String hostId, LocalDate from, LocalDate to) throws DataAccessException {
+        long cents = load(hostId).sumTotalCents(ReservationColumns.toDay(from), ReservationColumns.toDay(to));
+        return BigDecimal.valueOf(cents, 2);
+    }
+
+    public synchronized List<Reservation> findByGuestId(String hostId, int guestId) throws DataAccessException {
+        ReservationColumns columns = load(hostId);
+        List<Reservation> result = new ArrayList<>();
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.getGuestId(i) == guestId) {
+                result.add(columns.toReservation(i, hostId));
+            }
+        }
+        return result;
+    }
+
+    //copies every <hostId>.csv in the directory into this store, replacing what the store had for that host
+    public synchronized int importCsv(String csvDirectory) throws DataAccessException {
+        int count = 0;
+        for (Path file : listFiles(Paths.get(csvDirectory), CSV_EXTENSION)) {
+            String hostId = getHostId(file, CSV_EXTENSION);
+            ReservationColumns columns = ReservationColumns.readCsv(file);
+            write(hostId, columns);
+            //imported rows keep their csv ids, which the sequence never handed out
+            getIdSequence(hostId).advancePast(columns.findHighestReservationId());
+            count += columns.size();
+        }
+        return count;
+    }
+
+    public synchronized int exportCsv(String csvDirectory) throws DataAccessException {
+        Path directory = Paths.get(csvDirectory);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+
+        int count = 0;
+        for (Path file : listFiles(Paths.get(repository), EXTENSION)) {
+            String hostId = getHostId(file, EXTENSION);
+            ReservationColumns columns = load(hostId);
+            columns.writeCsv(directory.resolve(hostId + CSV_EXTENSION));
+            count += columns.size();
+        }
+        return count;
+    }
+
+    @Override
+    public synchronized void forEachStay(String hostId, StayConsumer consumer) throws DataAccessException {
+        ReservationColumns columns = load(hostId);
+        for (int i = 0; i < columns.size(); i++) {
+            consumer.accept(columns.getStartDay(i), columns.getEndDay(i), columns.getTotalCents(i));
+        }
+    }
+
+    @Override
+    public synchronized OccupancyCalendar getCalendar(String hostId) throws DataAccessException {
+        CachedColumns cached = getCachedColumns(hostId);
+        if (cached.calendar == null || !cached.calendar.isCurrent()) {
+            cached.calendar = cached.columns.toCalendar();
+        }
+        return cached.calendar;
+    }
+
+    //changes whenever the host's file changes, whichever process or repository wrote it
+    @Override
+    public synchronized long getVersion(String hostId) throws DataAccessException {
+        return getCachedColumns(hostId).version;
+    }
+
+    public String getFilePath(String id) {
+        return Paths.get(repository, id + EXTENSION).toString();
+    }
+
+    public String getSequencePath(String id) {
+        return Paths.get(repository, id + ".seq").toString();
+    }
+
+    private ReservationColumns load(String hostId) throws DataAccessException {
+        return getCachedColumns(hostId).columns;
+    }
+
+    //re-reads a host's file when another process has replaced it since we last saw it
+    private CachedColumns getCachedColumns(String hostId) throws DataAccessException {
+        Path path = Paths.get(getFilePath(hostId));
+        BasicFileAttributes attributes = readAttributes(path);
+        CachedColumns cached = hosts.get(hostId);
+        if (cached == null || !cached.matches(attributes)) {
+            ReservationColumns columns = attributes == null ? new ReservationColumns()
+                    : ReservationColumns.readBinary(path);
+            cached = stamp(hostId, columns, attributes);
+        }
+        return cached;
+    }
+
+    private CachedColumns stamp(String hostId, ReservationColumns columns, BasicFileAttributes attributes) {
+        CachedColumns cached = new CachedColumns(columns, attributes, ++versions);
+        hosts.put(hostId, cached);
+        return cached;
+    }
+
+    private void write(String hostId, ReservationColumns columns) throws DataAccessException {
+        Path path = Paths.get(getFilePath(hostId));
+        try {
+            Files.createDirectories(path.getParent());
+            columns.writeBinary(path);
+        } catch (IOException ex) {
+            hosts.remove(hostId);
+            throw new DataAccessException(ex.getMessage());
+        } catch (DataAccessException ex) {
+            //the in-memory columns are ahead of the file, so read it again next time
+            hosts.remove(hostId);
+            throw ex;
+        }
+        stamp(hostId, columns, readAttributes(path));
+    }
+
+    private BasicFileAttributes readAttributes(Path path) throws DataAccessException {
+        try {
+            return Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (NoSuchFileException ex) {
+            return null;
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+    }
+
+    private int nextReservationId(String hostId) throws DataAccessException {
+        return Math.toIntExact(getIdSequence(hostId).nextId());
+    }
+
+    private IdSequence getIdSequence(String hostId) {
+        return idSequences.computeIfAbsent(hostId, id -> new IdSequence(
+                Paths.get(getSequencePath(id)), ID_BLOCK_SIZE, () -> load(id).findHighestReservationId()));
+    }
+
+    private List<Path> listFiles(Path directory, String extension) throws DataAccessException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + extension)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+        return files;
+    }
+
+    private String getHostId(Path file, String extension) {
+        String name = file.getFileName().toString();
+        return name.substring(0, name.length() - extension.length());
+    }
+}
@@ -0,0 +1,310 @@
+package learn.repository;
+
+import learn.models.Guest;
+import learn.models.Host;
+import learn.models.Reservation;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//one host's reservations as parallel primitive columns, in file order
+//dates are epoch days, guest ids are the numeric ids from guests.csv and totals are in cents
+public class ReservationColumns {
+
+    //"RSVC" followed by a format version, then the row count and each column in turn
+    private static final int MAGIC = 0x52535643;
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 12;
+    private static final int ROW_BYTES = 4 * Integer.BYTES + Long.BYTES;
+    private static final String CSV_HEADER = "id,start_date,end_date,guest_id,total";
+    private static final int CSV_FIELDS = 5;
+
+    private int[] reservationIds;
+    private int[] startDays;
+    private int[] endDays;
+    private int[] guestIds;
+    private long[] totalCents;
+    private int size;
+
+    public ReservationColumns() {
+        this(8);
+    }
+
+    private ReservationColumns(int capacity) {
+        reservationIds = new int[capacity];
+        startDays = new int[capacity];
+        endDays = new int[capacity];
+        guestIds = new int[capacity];
+        totalCents = new long[capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getReservationId(int row) {
+        return reservationIds[row];
+    }
+
+    public int getStartDay(int row) {
+        return startDays[row];
+    }
+
+    public int getEndDay(int row) {
+        return endDays[row];
+    }
+
+    public int getGuestId(int row) {
+        return guestIds[row];
+    }
+
+    public long getTotalCents(int row) {
+        return totalCents[row];
+    }
+
+    public void add(int reservationId, int startDay, int endDay, int guestId, long cents) {
+        if (size == reservationIds.length) {
+            grow(size * 2);
+        }
+        set(size++, reservationId, startDay, endDay, guestId, cents);
+    }
+
+    public void add(Reservation reservation) throws DataAccessException {
+        add(reservation.getReservationId(), toDay(reservation.getStartDate()), toDay(reservation.getEndDate()),
+                toGuestId(reservation), toCents(reservation.getTotal()));
+    }
+
+    public void set(int row, Reservation reservation) throws DataAccessException {
+        set(row, reservation.getReservationId(), toDay(reservation.getStartDate()), toDay(reservation.getEndDate()),
+                toGuestId(reservation), toCents(reservation.getTotal()));
+    }
+
+    public void remove(int row) {
+        int moved = size - row - 1;
+        System.arraycopy(reservationIds, row + 1, reservationIds, row, moved);
+        System.arraycopy(startDays, row + 1, startDays, row, moved);
+        System.arraycopy(endDays, row + 1, endDays, row, moved);
+        System.arraycopy(guestIds, row + 1, guestIds, row, moved);
+        System.arraycopy(totalCents, row + 1, totalCents, row, moved);
+        size--;
+    }
+
+    public int indexOf(int reservationId) {
+        for (int i = 0; i < size; i++) {
+            if (reservationIds[i] == reservationId) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public int findHighestReservationId() {
+        int highest = 0;
+        for (int i = 0; i < size; i++) {
+            highest = Math.max(highest, reservationIds[i]);
+        }
+        return highest;
+    }
+
+    //half-open [startDay, endDay), so a stay may begin on the day another ends
+    public boolean overlaps(int startDay, int endDay, int ignoredReservationId) {
+        for (int i = 0; i < size; i++) {
+            if (startDays[i] < endDay && endDays[i] > startDay && reservationIds[i] != ignoredReservationId) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //sum of the stays that start in [fromDay, toDay)
+    public long sumTotalCents(int fromDay, int toDay) {
+        long sum = 0;
+        for (int i = 0; i < size; i++) {
+            if (startDays[i] >= fromDay && startDays[i] < toDay) {
+                sum += totalCents[i];
+            }
+        }
+        return sum;
+    }
+
+    public OccupancyCalendar toCalendar() {
+        OccupancyCalendar calendar = new OccupancyCalendar(LocalDate.now(), OccupancyCalendar.HORIZON_DAYS);
+        for (int i = 0; i < size; i++) {
+            calendar.book(startDays[i], endDays[i]);
+        }
+        return calendar;
+    }
+
+    public Reservation toReservation(int row, String hostId) {
+        Reservation reservation = new Reservation();
+        reservation.setReservationId(reservationIds[row]);
+        reservation.setStartDate(LocalDate.ofEpochDay(startDays[row]));
+        reservation.setEndDate(LocalDate.ofEpochDay(endDays[row]));
+
+        Guest guest = new Guest();
+        guest.setId(String.valueOf(guestIds[row]));
+        reservation.setGuest(guest);
+
+        Host host = new Host();
+        host.setId(hostId);
+        reservation.setHost(host);
+
+        reservation.setTotal(BigDecimal.valueOf(totalCents[row], 2));
+        return reservation;
+    }
+
+    public List<Reservation> toReservations(String hostId) {
+        List<Reservation> reservations = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            reservations.add(toReservation(i, hostId));
+        }
+        return reservations;
+    }
+
+    public static ReservationColumns readBinary(Path file) throws DataAccessException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header);
+            header.flip();
+            if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+                throw new DataAccessException("Not a reservation column file: " + file);
+            }
+
+            int count = header.getInt();
+            if (count < 0 || channel.size() != HEADER_BYTES + (long) count * ROW_BYTES) {
+                throw new DataAccessException("Truncated reservation column file: " + file);
+            }
+
+            ByteBuffer body = ByteBuffer.allocate(count * ROW_BYTES);
+            readFully(channel, body);
+            body.flip();
+
+            ReservationColumns columns = new ReservationColumns(Math.max(8, count));
+            columns.size = count;
+            body.asIntBuffer().get(columns.reservationIds, 0, count);
+            body.position(body.position() + count * Integer.BYTES);
+            body.asIntBuffer().get(columns.startDays, 0, count);
+            body.position(body.position() + count * Integer.BYTES);
+            body.asIntBuffer().get(columns.endDays, 0, count);
+            body.position(body.position() + count * Integer.BYTES);
+            body.asIntBuffer().get(columns.guestIds, 0, count);
+            body.position(body.position() + count * Integer.BYTES);
+            body.asLongBuffer().get(columns.totalCents, 0, count);
+            return columns;
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+    }
+
+    //written to a temporary file and moved into place, so readers never see a half-written file
+    public void writeBinary(Path file) throws DataAccessException {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + size * ROW_BYTES);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(size);
+        buffer.asIntBuffer().put(reservationIds, 0, size);
+        buffer.position(buffer.position() + size * Integer.BYTES);
+        buffer.asIntBuffer().put(startDays, 0, size);
+        buffer.position(buffer.position() + size * Integer.BYTES);
+        buffer.asIntBuffer().put(endDays, 0, size);
+        buffer.position(buffer.position() + size * Integer.BYTES);
+        buffer.asIntBuffer().put(guestIds, 0, size);
+        buffer.position(buffer.position() + size * Integer.BYTES);
+        buffer.asLongBuffer().put(totalCents, 0, size);
+        buffer.rewind();
+
+        WriteAheadLog.replace(WriteAheadLog.writeTemp(file, buffer), file);
+    }
+
+    //reads a host's reservations csv straight into the columns, without building Reservation objects
+    public static ReservationColumns readCsv(Path file) throws DataAccessException {
+        ReservationColumns columns = new ReservationColumns();
+        try (CsvReader reader = new CsvReader(file)) {
+            reader.nextRow();
+            while (reader.nextRow()) {
+                if (reader.getFieldCount() != CSV_FIELDS) {
+                    continue;
+                }
+
+                long startDay = reader.getEpochDay(1);
+                long endDay = reader.getEpochDay(2);
+                if (startDay == CsvReader.NO_DATE || endDay == CsvReader.NO_DATE) {
+                    throw new DataAccessException("Invalid reservation dates in " + file);
+                }
+                columns.add(reader.getInt(0), Math.toIntExact(startDay), Math.toIntExact(endDay),
+                        reader.getInt(3), toCents(reader.getDecimal(4)));
+            }
+        } catch (IOException | NumberFormatException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+        return columns;
+    }
+
+    public void writeCsv(Path file) throws DataAccessException {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write(CSV_HEADER);
+            writer.newLine();
+            for (int i = 0; i < size; i++) {
+                writer.write(reservationIds[i] + "," + LocalDate.ofEpochDay(startDays[i]) + ","
+                        + LocalDate.ofEpochDay(endDays[i]) + "," + guestIds[i] + ","
+                        + BigDecimal.valueOf(totalCents[i], 2));
+                writer.newLine();
+            }
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+    }
+
+    private void set(int row, int reservationId, int startDay, int endDay, int guestId, long cents) {
+        reservationIds[row] = reservationId;
+        startDays[row] = startDay;
+        endDays[row] = endDay;
+        guestIds[row] = guestId;
+        totalCents[row] = cents;
+    }
+
+    private void grow(int capacity) {
+        reservationIds = Arrays.copyOf(reservationIds, capacity);
+        startDays = Arrays.copyOf(startDays, capacity);
+        endDays = Arrays.copyOf(endDays, capacity);
+        guestIds = Arrays.copyOf(guestIds, capacity);
+        totalCents = Arrays.copyOf(totalCents, capacity);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of file");
+            }
+        }
+    }
+
+    public static int toDay(LocalDate date) {
+        return Math.toIntExact(date.toEpochDay());
+    }
+
+    private static int toGuestId(Reservation reservation) throws DataAccessException {
+        try {
+            return Integer.parseInt(reservation.getGuest().getId());
+        } catch (NumberFormatException ex) {
+            throw new DataAccessException("Guest id must be numeric: " + reservation.getGuest().getId());
+        }
+    }
+
+    private static long toCents(BigDecimal total) throws DataAccessException {
+        try {
+            return total.movePointRight(2).longValueExact();
+        } catch (ArithmeticException ex) {
+            throw new DataAccessException("Total must be a whole number of cents: " + total);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package learn.repository;
+
+import learn.models.Reservation;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+//parses every <hostId>.csv in a reservations directory on a fork/join pool
+//a file that can't be read is reported in the result's errors, the other hosts still load
+public class ReservationDirectoryLoader {
+
+    public static class LoadResult {
+        //host id -> reservations, in directory listing order
+        private final Map<String, List<Reservation>> reservations = new LinkedHashMap<>();
+        //host id -> why that host's file could not be read
+        private final Map<String, String> errors = new LinkedHashMap<>();
+
+        public Map<String, List<Reservation>> getReservations() {
+            return reservations;
+        }
+
+        public Map<String, String> getErrors() {
+            return errors;
+        }
+
+        public boolean isSuccess() {
+            return errors.isEmpty();
+        }
+    }
+
+    private static final String EXTENSION = ".csv";
+
+    private final ForkJoinPool pool;
+
+    public ReservationDirectoryLoader() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    public ReservationDirectoryLoader(int parallelism) {
+        this.pool = new ForkJoinPool(parallelism);
+    }
+
+    public int getParallelism() {
+        return pool.getParallelism();
+    }
+
+    public LoadResult loadAll(String directory) throws DataAccessException {
+        List<Path> files = listFiles(Paths.get(directory));
+        String[] hostIds = new String[files.size()];
+        List<Reservation>[] loaded = newListArray(files.size());
+        String[] errors = new String[files.size()];
+
+        for (int i = 0; i < hostIds.length; i++) {
+            String name = files.get(i).getFileName().toString();
+            hostIds[i] = name.substring(0, name.length() - EXTENSION.length());
+        }
+        if (!files.isEmpty()) {
+            pool.invoke(new LoadTask(files, hostIds, loaded, errors, 0, files.size()));
+        }
+
+        LoadResult result = new LoadResult();
+        for (int i = 0; i < hostIds.length; i++) {
+            if (errors[i] != null) {
+                result.errors.put(hostIds[i], errors[i]);
+            } else {
+                result.reservations.put(hostIds[i], loaded[i]);
+            }
+        }
+        return result;
+    }
+
+    public List<Reservation> load(String directory, String hostId) throws DataAccessException {
+        Path path = Paths.get(directory, hostId + EXTENSION);
+        if (!Files.exists(path)) {
+            return new ArrayList<>();
+        }
+        return FileLocks.readLocked(path, () -> ReservationFileRepository.readAll(path, hostId));
+    }
+
+    public void close() {
+        pool.shutdown();
+    }
+
+    //splits the file range in half until each task holds one file
+    private class LoadTask extends RecursiveAction {
+
+        private final List<Path> files;
+        private final String[] hostIds;
+        private final List<Reservation>[] loaded;
+        private final String[] errors;
+        private final int start;
+        private final int end;
+
+        LoadTask(List<Path> files, String[] hostIds, List<Reservation>[] loaded, String[] errors, int start, int end) {
+            this.files = files;
+            this.hostIds = hostIds;
+            this.loaded = loaded;
+            this.errors = errors;
+            this.start = start;
+            this.end = end;
+        }
+
+        @Override
+        protected void compute() {
+            if (end - start == 1) {
+                Path path = files.get(start);
+                try {
+                    //a file deleted since the directory was listed reads as empty
+                    loaded[start] = FileLocks.readLocked(path,
+                            () -> ReservationFileRepository.readAll(path, hostIds[start]));
+                } catch (DataAccessException | RuntimeException ex) {
+                    errors[start] = ex.getMessage() == null ? ex.toString() : ex.getMessage();
+                }
+                return;
+            }
+
+            int middle = (start + end) >>> 1;
+            invokeAll(new LoadTask(files, hostIds, loaded, errors, start, middle),
+                    new LoadTask(files, hostIds, loaded, errors, middle, end));
+        }
+    }
+
+    private List<Path> listFiles(Path directory) throws DataAccessException {
+        List<Path> files = new ArrayList<>();
+        if (!Files.isDirectory(directory)) {
+            return files;
+        }
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path file : stream) {
+                files.add(file);
+            }
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+        return files;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Reservation>[] newListArray(int size) {
+        return (List<Reservation>[]) new List[size];
+    }
+}
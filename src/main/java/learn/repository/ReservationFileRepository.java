@@ -6,12 +6,22 @@ import learn.models.Reservation;
 import learn.repository.convertToJSON.ReservationToJSONRepository;
 
 import java.io.*;
-import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
-import java.time.format.DateTimeParseException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ReservationFileRepository implements ReservationRepository {
 
@@ -19,27 +29,64 @@ public class ReservationFileRepository implements ReservationRepository {
     private static final String DELIMITER = ",";
     private final String repository;
     private final ReservationToJSONRepository reservationToJSONRepository;
-    private final int RESERVATION_SPLIT_FIELDS = 5;
+    private static final int RESERVATION_SPLIT_FIELDS = 5;
+    private static final int ID_BLOCK_SIZE = 16;
+    private final boolean syncWrites;
+    //host id -> that host's reservation id sequence, kept in <hostId>.seq next to the host's csv
+    private final Map<String, IdSequence> idSequences = new ConcurrentHashMap<>();
+    //host id -> booked nights, built on first use and changed under the host file's write lock with every write;
+    //rebuilt when the host's csv no longer has the mtime and size it had, so writes from other processes show up
+    private final Map<String, CachedCalendar> calendars = new ConcurrentHashMap<>();
+    private final AtomicLong calendarVersions = new AtomicLong();
+
+    //a calendar with the stamp of the csv it matches and a version no other calendar of this repository has
+    private static class CachedCalendar {
+        private final OccupancyCalendar calendar;
+        private final FileTime modifiedTime;
+        private final long size;
+        private final long version;
+
+        CachedCalendar(OccupancyCalendar calendar, FileTime modifiedTime, long size, long version) {
+            this.calendar = calendar;
+            this.modifiedTime = modifiedTime;
+            this.size = size;
+            this.version = version;
+        }
+    }
 
     public ReservationFileRepository(String repository, ReservationToJSONRepository reservationToJSONRepository) {
+        this(repository, reservationToJSONRepository, false);
+    }
+
+    public ReservationFileRepository(String repository, ReservationToJSONRepository reservationToJSONRepository,
+                                     boolean syncWrites) {
         this.repository = repository;
         this.reservationToJSONRepository = reservationToJSONRepository;
+        this.syncWrites = syncWrites;
     }
 
     @Override
     public List<Reservation> findById(String id) throws DataAccessException {
+        Path path = Paths.get(getFilePath(id));
+        if (!Files.exists(path)) {
+            return new ArrayList<>();
+        }
+        return FileLocks.readLocked(path, () -> readAll(path, id));
+    }
+
+    //the one reservation file parser, the directory loader reads through it too; callers hold the file's read lock
+    static List<Reservation> readAll(Path path, String id) throws DataAccessException {
         ArrayList<Reservation> all = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(getFilePath(id)))) {
+        try (CsvReader reader = new CsvReader(path)) {
 
-            reader.readLine();
+            reader.nextRow();
 
-            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-                String[] fields = line.split(DELIMITER, -1);
-                if (fields.length == RESERVATION_SPLIT_FIELDS) {
-                    all.add(deserialized(fields, id));
+            while (reader.nextRow()) {
+                if (reader.getFieldCount() == RESERVATION_SPLIT_FIELDS) {
+                    all.add(deserialized(reader, id));
                 }
             }
-        } catch (FileNotFoundException ex) {
+        } catch (NoSuchFileException ex) {
             //do nothing
         } catch (IOException ex) {
             throw new DataAccessException(ex.getMessage());
@@ -59,70 +106,159 @@ public class ReservationFileRepository implements ReservationRepository {
         }
 
         String hostId = reservation.getHost().getId();
-        List<Reservation> all = findById(hostId);
-        int nextInt = all.size();
-
-        reservation.setReservationId(nextInt);
-        all.add(reservation);
-        writeAll(all, hostId);
+        FileLocks.writeLocked(Paths.get(getFilePath(hostId)), () -> {
+            reservation.setReservationId(nextReservationId(hostId));
+            CachedCalendar cached = findFreshCalendar(hostId);
+            append(List.of(reservation), hostId);
+            bookCalendar(hostId, cached, List.of(reservation));
+            return null;
+        });
+        reservationToJSONRepository.writeHostToJSON(hostId);
 
         return reservation;
     }
 
+    //every row is written in one append and the ids come from one block of the sequence;
+    //the JSON export is left to exportAll so a bulk import regenerates it once
+    @Override
+    public List<Reservation> addAll(String hostId, List<Reservation> reservations) throws DataAccessException {
+        if (reservations.isEmpty()) {
+            return reservations;
+        }
+
+        FileLocks.writeLocked(Paths.get(getFilePath(hostId)), () -> {
+            long id = getIdSequence(hostId).nextIds(reservations.size());
+            for (Reservation reservation : reservations) {
+                reservation.setReservationId(Math.toIntExact(id++));
+            }
+            CachedCalendar cached = findFreshCalendar(hostId);
+            append(reservations, hostId);
+            bookCalendar(hostId, cached, reservations);
+            return null;
+        });
+        return reservations;
+    }
+
+    @Override
+    public void exportAll() throws DataAccessException {
+        reservationToJSONRepository.writeToJSON(new File(repository));
+    }
+
     @Override
     public boolean update(Reservation reservation) throws DataAccessException {
         if (reservation == null) {
             return false;
         }
 
-        List<Reservation> all = findById(reservation.getHost().getId());
-        for (int i = 0; i < all.size(); i++) {
-            if (all.get(i).getReservationId() == reservation.getReservationId()) {
-                all.set(i, reservation);
-                writeAll(all, reservation.getHost().getId());
-                return true;
+        String hostId = reservation.getHost().getId();
+        boolean updated = FileLocks.writeLocked(Paths.get(getFilePath(hostId)), () -> {
+            List<Reservation> all = findById(hostId);
+            for (int i = 0; i < all.size(); i++) {
+                if (all.get(i).getReservationId() == reservation.getReservationId()) {
+                    all.set(i, reservation);
+                    writeAll(all, hostId);
+                    resetCalendar(hostId, all);
+                    return true;
+                }
             }
+            return false;
+        });
+
+        if (updated) {
+            reservationToJSONRepository.writeHostToJSON(hostId);
         }
-        return false;
+        return updated;
     }
 
     @Override
     public boolean deleteById(String hostId, int reservationId) throws DataAccessException {
-
-        List<Reservation> all = findById(hostId);
-        if (all == null || all.size() == 0) {
+        boolean deleted = FileLocks.writeLocked(Paths.get(getFilePath(hostId)), () -> {
+            List<Reservation> all = findById(hostId);
+            for (int i = 0; i < all.size(); i++) {
+                if (all.get(i).getReservationId() == reservationId) {
+                    all.remove(i);
+                    writeAll(all, hostId);
+                    resetCalendar(hostId, all);
+                    return true;
+                }
+            }
             return false;
+        });
+
+        if (deleted) {
+            reservationToJSONRepository.writeHostToJSON(hostId);
         }
+        return deleted;
+    }
 
-        for (int i = 0; i < all.size(); i++) {
-            if (all.get(i).getReservationId() == reservationId) {
-                all.remove(i);
-                writeAll(all, hostId);
-                return true;
-            }
+    //reads days and cents off the csv fields as readAll would parse them, without building a Reservation per row
+    @Override
+    public void forEachStay(String hostId, StayConsumer consumer) throws DataAccessException {
+        Path path = Paths.get(getFilePath(hostId));
+        if (!Files.exists(path)) {
+            return;
         }
-        return false;
+        FileLocks.readLocked(path, () -> {
+            try (CsvReader reader = new CsvReader(path)) {
+
+                reader.nextRow();
+
+                while (reader.nextRow()) {
+                    if (reader.getFieldCount() != RESERVATION_SPLIT_FIELDS) {
+                        continue;
+                    }
+                    long startDay = reader.getEpochDay(1);
+                    long endDay = reader.getEpochDay(2);
+                    if (startDay == CsvReader.NO_DATE || endDay == CsvReader.NO_DATE) {
+                        continue;
+                    }
+                    long totalCents = reader.getDecimal(4).movePointRight(2).setScale(0, RoundingMode.HALF_UP)
+                            .longValue();
+                    consumer.accept(startDay, endDay, totalCents);
+                }
+            } catch (NoSuchFileException ex) {
+                //do nothing
+            } catch (IOException | NumberFormatException ex) {
+                throw new DataAccessException(ex.getMessage());
+            }
+            return null;
+        });
+    }
+
+    @Override
+    public OccupancyCalendar getCalendar(String hostId) throws DataAccessException {
+        return getCachedCalendar(hostId).calendar;
+    }
+
+    //changes whenever the host's csv changes, whichever process or repository wrote it
+    @Override
+    public long getVersion(String hostId) throws DataAccessException {
+        return getCachedCalendar(hostId).version;
     }
 
     public String getFilePath(String id) {
         return Paths.get(repository, id + ".csv").toString();
     }
 
-    private Reservation deserialized(String[] fields, String id) {
+    public String getSequencePath(String id) {
+        return Paths.get(repository, id + ".seq").toString();
+    }
+
+    private static Reservation deserialized(CsvReader reader, String id) {
         Reservation reservation = new Reservation();
-        reservation.setReservationId(Integer.parseInt(fields[0]));
-        reservation.setStartDate(stringToDate(fields[1]));
-        reservation.setEndDate(stringToDate(fields[2]));
+        reservation.setReservationId(reader.getInt(0));
+        reservation.setStartDate(reader.getDate(1));
+        reservation.setEndDate(reader.getDate(2));
 
         Guest guest = new Guest();
-        guest.setId(fields[3]);
+        guest.setId(reader.getString(3));
         reservation.setGuest(guest);
 
         Host host = new Host();
         host.setId(id);
         reservation.setHost(host);
 
-        reservation.setTotal(new BigDecimal(fields[4]));
+        reservation.setTotal(reader.getDecimal(4));
 
         return reservation;
     }
@@ -139,24 +275,138 @@ public class ReservationFileRepository implements ReservationRepository {
         return builder.toString();
     }
 
-    private LocalDate stringToDate(String date) {
-        try {
-            return LocalDate.parse(date, Reservation.FORMATTER);
-        } catch (DateTimeParseException ex) {
-            return null;
+
+    //writes rows at the end of the host's file, so the cost does not depend on how many rows it already has
+    private void append(List<Reservation> reservations, String hostId) throws DataAccessException {
+        try (FileChannel channel = FileChannel.open(Paths.get(getFilePath(hostId)),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+
+            long size = channel.size();
+
+            StringBuilder builder = new StringBuilder(100 * reservations.size());
+            if (size == 0) {
+                builder.append(HEADER).append(System.lineSeparator());
+            } else if (readLastByte(channel, size) != '\n') {
+                builder.append(System.lineSeparator());
+            }
+            for (Reservation reservation : reservations) {
+                builder.append(serialized(reservation)).append(System.lineSeparator());
+            }
+
+            ByteBuffer buffer = ByteBuffer.wrap(builder.toString().getBytes(StandardCharsets.UTF_8));
+            long position = size;
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+
+            if (syncWrites) {
+                channel.force(false);
+            }
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
         }
     }
 
-    private void writeAll(List<Reservation> reservations, String hostId) throws DataAccessException {
-        try (PrintWriter writer = new PrintWriter(getFilePath(hostId))) {
-            writer.println(HEADER);
+    private int readLastByte(FileChannel channel, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1);
+        if (channel.read(buffer, size - 1) < 1) {
+            return -1;
+        }
+        return buffer.get(0);
+    }
+
+    //built under the read lock, so a write can't land between reading the file and caching what was read
+    private CachedCalendar getCachedCalendar(String hostId) throws DataAccessException {
+        CachedCalendar cached = calendars.get(hostId);
+        if (cached != null && cached.calendar.isCurrent() && isUnchanged(hostId, cached)) {
+            return cached;
+        }
+        return FileLocks.readLocked(Paths.get(getFilePath(hostId)), () -> {
+            CachedCalendar current = calendars.get(hostId);
+            if (current != null && current.calendar.isCurrent() && isUnchanged(hostId, current)) {
+                return current;
+            }
+            return stampCalendar(hostId, new OccupancyCalendar(findById(hostId)));
+        });
+    }
 
-            for (Reservation r : reservations) {
-                writer.println(serialized(r));
+    //called under the write lock before writing, null when there is no calendar or another process changed the file
+    private CachedCalendar findFreshCalendar(String hostId) throws DataAccessException {
+        CachedCalendar cached = calendars.get(hostId);
+        if (cached == null || !cached.calendar.isCurrent() || !isUnchanged(hostId, cached)) {
+            calendars.remove(hostId);
+            return null;
+        }
+        return cached;
+    }
+
+    //a host whose calendar was never asked for is left alone, it is built from the file when first needed
+    private void bookCalendar(String hostId, CachedCalendar cached, List<Reservation> reservations)
+            throws DataAccessException {
+        if (cached != null) {
+            for (Reservation reservation : reservations) {
+                cached.calendar.book(reservation);
             }
-        } catch (FileNotFoundException ex) {
+            stampCalendar(hostId, cached.calendar);
+        }
+    }
+
+    //a moved or removed stay can share nights with an overlapping row, so the calendar is rebuilt from the rows
+    //rather than having the old stay's bits cleared; the rows were read under the same write lock
+    private void resetCalendar(String hostId, List<Reservation> reservations) throws DataAccessException {
+        if (calendars.containsKey(hostId)) {
+            stampCalendar(hostId, new OccupancyCalendar(reservations));
+        }
+    }
+
+    private CachedCalendar stampCalendar(String hostId, OccupancyCalendar calendar) throws DataAccessException {
+        Path path = Paths.get(getFilePath(hostId));
+        CachedCalendar cached;
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            cached = new CachedCalendar(calendar, attributes.lastModifiedTime(), attributes.size(),
+                    calendarVersions.incrementAndGet());
+        } catch (NoSuchFileException ex) {
+            cached = new CachedCalendar(calendar, null, -1, calendarVersions.incrementAndGet());
+        } catch (IOException ex) {
             throw new DataAccessException(ex.getMessage());
         }
-        reservationToJSONRepository.writeToJSON(new File(repository));
+        calendars.put(hostId, cached);
+        return cached;
+    }
+
+    private boolean isUnchanged(String hostId, CachedCalendar cached) throws DataAccessException {
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(Paths.get(getFilePath(hostId)),
+                    BasicFileAttributes.class);
+            return attributes.lastModifiedTime().equals(cached.modifiedTime) && attributes.size() == cached.size;
+        } catch (NoSuchFileException ex) {
+            return cached.modifiedTime == null;
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+    }
+
+    //the sequence only reads the host's file once, to seed a sidecar for a host that predates it
+    private int nextReservationId(String hostId) throws DataAccessException {
+        return Math.toIntExact(getIdSequence(hostId).nextId());
+    }
+
+    private IdSequence getIdSequence(String hostId) {
+        return idSequences.computeIfAbsent(hostId, id -> new IdSequence(
+                Paths.get(getSequencePath(id)), ID_BLOCK_SIZE, () -> findHighestReservationId(id)));
+    }
+
+    private long findHighestReservationId(String hostId) throws DataAccessException {
+        int highestId = 0;
+        for (Reservation r : findById(hostId)) {
+            highestId = Math.max(highestId, r.getReservationId());
+        }
+        return highestId;
+    }
+
+    //written next to the file and moved into place, so a reader never sees the file truncated or half written
+    private void writeAll(List<Reservation> reservations, String hostId) throws DataAccessException {
+        WriteAheadLog.writeAtomically(Paths.get(getFilePath(hostId)), HEADER, reservations, this::serialized);
     }
 }
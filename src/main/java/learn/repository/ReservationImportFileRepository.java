@@ -0,0 +1,56 @@
+package learn.repository;
+
+import learn.models.Guest;
+import learn.models.Host;
+import learn.models.Reservation;
+
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+//reads bookings to import, one "host_email,guest_email,start_date,end_date" row per reservation after a header
+//hosts and guests only carry their email and unreadable dates are left null, the service reports both per row
+public class ReservationImportFileRepository {
+
+    private static final int IMPORT_FIELDS = 4;
+
+    public List<Reservation> findAll(String filePath) throws DataAccessException {
+        List<Reservation> all = new ArrayList<>();
+        try (CsvReader reader = new CsvReader(Paths.get(filePath))) {
+
+            reader.nextRow();
+
+            while (reader.nextRow()) {
+                if (!reader.isBlank()) {
+                    all.add(deserialized(reader));
+                }
+            }
+        } catch (NoSuchFileException ex) {
+            throw new DataAccessException("Could not find " + filePath);
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+        return all;
+    }
+
+    private Reservation deserialized(CsvReader reader) {
+        Reservation reservation = new Reservation();
+        if (reader.getFieldCount() != IMPORT_FIELDS) {
+            return reservation;
+        }
+
+        Host host = new Host();
+        host.setEmail(reader.getString(0).trim());
+        reservation.setHost(host);
+
+        Guest guest = new Guest();
+        guest.setEmail(reader.getString(1).trim());
+        reservation.setGuest(guest);
+
+        reservation.setStartDate(reader.getDate(2));
+        reservation.setEndDate(reader.getDate(3));
+        return reservation;
+    }
+}
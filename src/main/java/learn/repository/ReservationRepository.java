@@ -2,9 +2,16 @@ package learn.repository;
 
 import learn.models.Reservation;
 
+import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.List;
 
 public interface ReservationRepository {
+
+    interface StayConsumer {
+        void accept(long startDay, long endDay, long totalCents);
+    }
+
     List<Reservation> findById(String id) throws DataAccessException;
 
     Reservation add(Reservation reservation) throws DataAccessException;
@@ -12,4 +19,44 @@ public interface ReservationRepository {
     boolean update(Reservation reservation) throws DataAccessException;
 
     boolean deleteById(String hostId, int reservationId) throws DataAccessException;
+
+    //adds one host's reservations in a single write, exportAll brings the JSON export up to date afterwards
+    default List<Reservation> addAll(String hostId, List<Reservation> reservations) throws DataAccessException {
+        List<Reservation> result = new ArrayList<>();
+        for (Reservation reservation : reservations) {
+            Reservation added = add(reservation);
+            if (added != null) {
+                result.add(added);
+            }
+        }
+        return result;
+    }
+
+    default void exportAll() throws DataAccessException {
+    }
+
+    //booked nights over the rolling horizon; built fresh here, kept up to date by repositories that cache it
+    default OccupancyCalendar getCalendar(String hostId) throws DataAccessException {
+        return new OccupancyCalendar(findById(hostId));
+    }
+
+    //each of the host's stays as epoch days and a total in cents, for callers that only add stays up; stays missing
+    //a date are skipped and a missing total counts as 0. Repositories that read days and cents straight from their
+    //files override this so no Reservation is built
+    default void forEachStay(String hostId, StayConsumer consumer) throws DataAccessException {
+        for (Reservation reservation : findById(hostId)) {
+            if (reservation.getStartDate() == null || reservation.getEndDate() == null) {
+                continue;
+            }
+            long totalCents = reservation.getTotal() == null ? 0
+                    : reservation.getTotal().movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValue();
+            consumer.accept(reservation.getStartDate().toEpochDay(), reservation.getEndDate().toEpochDay(),
+                    totalCents);
+        }
+    }
+
+    //changes whenever the host's reservations change, -1 when the repository can't tell
+    default long getVersion(String hostId) throws DataAccessException {
+        return -1;
+    }
 }
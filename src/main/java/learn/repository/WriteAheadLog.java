@@ -0,0 +1,212 @@
+package learn.repository;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+//append-only log of row writes kept next to a csv file, one "<row index>,<csv row>" record per line
+//every record replaces the row at that index (or adds it when the index is one past the end),
+//so replaying a record that is already folded into the base file is harmless
+public class WriteAheadLog {
+
+    public interface Replayer {
+        //the record's row starts at field 1 of the reader's current row
+        void apply(int index, CsvReader reader) throws DataAccessException;
+    }
+
+    //one daemon thread shared by every log, compactions are rare and short
+    private static final ExecutorService COMPACTOR = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "wal-compactor");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final Path path;
+    private final boolean syncWrites;
+
+    public WriteAheadLog(Path path, boolean syncWrites) {
+        this.path = path;
+        this.syncWrites = syncWrites;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long length() throws DataAccessException {
+        try {
+            return Files.size(path);
+        } catch (NoSuchFileException ex) {
+            return 0;
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+    }
+
+    public void append(int index, String row) throws DataAccessException {
+        byte[] record = (index + "," + row + "\n").getBytes(StandardCharsets.UTF_8);
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(record);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            if (syncWrites) {
+                channel.force(false);
+            }
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+    }
+
+    //a record without its trailing newline was cut off by a crash, it is dropped from the file before replaying
+    public void replay(Replayer replayer) throws DataAccessException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long complete = findEndOfLastRecord(channel);
+            if (complete < channel.size()) {
+                channel.truncate(complete);
+            }
+            if (complete == 0) {
+                return;
+            }
+
+            //appends only add bytes past the mapping and a torn tail is cut past complete, so the mapped range
+            //stays backed; removeFirst replaces the whole log by a rename
+            CsvReader reader = new CsvReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, complete));
+            while (reader.nextRow()) {
+                if (!reader.isBlank()) {
+                    replayer.apply(reader.getInt(0), reader);
+                }
+            }
+        } catch (NoSuchFileException ex) {
+            //nothing logged yet
+        } catch (IOException | NumberFormatException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+    }
+
+    //drops the first logLength bytes once they are folded into the base file, keeping anything appended since
+    public void removeFirst(long logLength) throws DataAccessException {
+        try {
+            long size = length();
+            if (size <= logLength) {
+                Files.deleteIfExists(path);
+                return;
+            }
+
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (FileChannel source = FileChannel.open(path, StandardOpenOption.READ);
+                 FileChannel target = FileChannel.open(temp, StandardOpenOption.CREATE,
+                         StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                long position = logLength;
+                while (position < size) {
+                    position += source.transferTo(position, size - position, target);
+                }
+                target.force(false);
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+    }
+
+    public void scheduleCompaction(Runnable compaction) {
+        COMPACTOR.execute(compaction);
+    }
+
+    //writes a whole csv file next to the target and moves it into place, so a crash never leaves it half written
+    public static <T> void writeAtomically(Path file, String header, List<T> rows,
+                                           Function<T, String> serializer) throws DataAccessException {
+        replace(writeTemp(file, header, rows, serializer), file);
+    }
+
+    public static <T> Path writeTemp(Path file, String header, List<T> rows,
+                                     Function<T, String> serializer) throws DataAccessException {
+        Path temp;
+        try {
+            temp = createTemp(file);
+            try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.UTF_8)) {
+                writer.write(header);
+                writer.newLine();
+                for (T row : rows) {
+                    writer.write(serializer.apply(row));
+                    writer.newLine();
+                }
+            }
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.force(false);
+            }
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+        return temp;
+    }
+
+    //the same for a binary file, the buffer's remaining bytes become the whole file
+    public static Path writeTemp(Path file, ByteBuffer contents) throws DataAccessException {
+        Path temp;
+        try {
+            temp = createTemp(file);
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                while (contents.hasRemaining()) {
+                    channel.write(contents);
+                }
+                channel.force(false);
+            }
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+        return temp;
+    }
+
+    //a name of its own, so two processes compacting the same file never write into each other's temp file
+    private static Path createTemp(Path file) throws IOException {
+        return Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName() + ".", ".tmp");
+    }
+
+    public static void replace(Path temp, Path file) throws DataAccessException {
+        try {
+            Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+    }
+
+    public static void discard(Path temp) throws DataAccessException {
+        try {
+            Files.deleteIfExists(temp);
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+    }
+
+    private long findEndOfLastRecord(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long end = channel.size();
+        while (end > 0) {
+            long start = Math.max(0, end - buffer.capacity());
+            buffer.clear().limit((int) (end - start));
+            while (buffer.hasRemaining() && channel.read(buffer, start + buffer.position()) > 0) {
+                //keep reading until the chunk is full
+            }
+            for (int i = buffer.position() - 1; i >= 0; i--) {
+                if (buffer.get(i) == '\n') {
+                    return start + i + 1;
+                }
+            }
+            end = start;
+        }
+        return 0;
+    }
+}
@@ -0,0 +1,24 @@
+package learn.repository.convertToJSON;
+
+import learn.models.Guest;
+import learn.repository.DataAccessException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AsyncGuestToJSONRepository implements GuestToJSONRepository {
+
+    private final GuestToJSONRepository repository;
+    private final JSONExportQueue exportQueue;
+
+    public AsyncGuestToJSONRepository(GuestToJSONRepository repository, JSONExportQueue exportQueue) {
+        this.repository = repository;
+        this.exportQueue = exportQueue;
+    }
+
+    @Override
+    public void writeToJSON(List<Guest> guests) throws DataAccessException {
+        List<Guest> snapshot = new ArrayList<>(guests);
+        exportQueue.submit("guests", () -> repository.writeToJSON(snapshot));
+    }
+}
@@ -0,0 +1,24 @@
+package learn.repository.convertToJSON;
+
+import learn.models.Host;
+import learn.repository.DataAccessException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class AsyncHostToJSONRepository implements HostToJSONRepository {
+
+    private final HostToJSONRepository repository;
+    private final JSONExportQueue exportQueue;
+
+    public AsyncHostToJSONRepository(HostToJSONRepository repository, JSONExportQueue exportQueue) {
+        this.repository = repository;
+        this.exportQueue = exportQueue;
+    }
+
+    @Override
+    public void writeToJSON(List<Host> hosts) throws DataAccessException {
+        List<Host> snapshot = new ArrayList<>(hosts);
+        exportQueue.submit("hosts", () -> repository.writeToJSON(snapshot));
+    }
+}
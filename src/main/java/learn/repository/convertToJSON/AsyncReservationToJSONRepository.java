@@ -0,0 +1,32 @@
+package learn.repository.convertToJSON;
+
+import learn.repository.DataAccessException;
+
+import java.io.File;
+
+public class AsyncReservationToJSONRepository implements ReservationToJSONRepository {
+
+    private final ReservationToJSONRepository repository;
+    private final JSONExportQueue exportQueue;
+
+    public AsyncReservationToJSONRepository(ReservationToJSONRepository repository, JSONExportQueue exportQueue) {
+        this.repository = repository;
+        this.exportQueue = exportQueue;
+    }
+
+    @Override
+    public void writeToJSON(File directory) throws DataAccessException {
+        exportQueue.submit("reservations", () -> repository.writeToJSON(directory));
+    }
+
+    //host exports re-read the host file when they run, so a burst of bookings exports the final state once
+    @Override
+    public void writeHostToJSON(String hostId) throws DataAccessException {
+        exportQueue.submit("reservations:" + hostId, () -> repository.writeHostToJSON(hostId));
+    }
+
+    @Override
+    public String getFileNameNoExtension(String fileName) throws DataAccessException {
+        return repository.getFileNameNoExtension(fileName);
+    }
+}
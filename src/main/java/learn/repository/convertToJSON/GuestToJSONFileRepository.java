@@ -1,37 +1,36 @@
 package learn.repository.convertToJSON;
 
-import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
 import learn.models.Guest;
 import learn.repository.DataAccessException;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class GuestToJSONFileRepository implements GuestToJSONRepository {
 
     private final String filePath;
+    private final boolean isPretty;
 
     public GuestToJSONFileRepository(String filePath) {
+        this(filePath, true);
+    }
+
+    public GuestToJSONFileRepository(String filePath, boolean isPretty) {
         this.filePath = filePath;
+        this.isPretty = isPretty;
     }
 
     @Override
     public void writeToJSON(List<Guest> guests) throws DataAccessException {
-        Map<String, Guest> map = new HashMap<>();
-        for (Guest g : guests) {
-            map.put(g.getId(), g);
-        }
-
-        ObjectMapper mapper = new ObjectMapper();
-        ObjectWriter writer = mapper.writer(new DefaultPrettyPrinter());
-
-        try {
-            writer.writeValue(new File(filePath), map);
+        try (JsonGenerator generator = JSONMapper.createGenerator(new File(filePath), isPretty)) {
+            generator.writeStartObject();
+            for (Guest g : guests) {
+                generator.writeFieldName(g.getId());
+                generator.writeObject(g);
+            }
+            generator.writeEndObject();
         } catch (IOException ex) {
             throw new DataAccessException(ex.getMessage());
         }
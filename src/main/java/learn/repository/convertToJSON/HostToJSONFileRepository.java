@@ -1,48 +1,38 @@
 package learn.repository.convertToJSON;
 
-import com.fasterxml.jackson.core.util.DefaultPrettyPrinter;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.core.JsonGenerator;
 import learn.models.Host;
 import learn.repository.DataAccessException;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 public class HostToJSONFileRepository implements HostToJSONRepository {
 
     private final String filePath;
+    private final boolean isPretty;
 
     public HostToJSONFileRepository(String filePath) {
+        this(filePath, true);
+    }
+
+    public HostToJSONFileRepository(String filePath, boolean isPretty) {
         this.filePath = filePath;
+        this.isPretty = isPretty;
     }
 
     @Override
     public void writeToJSON(List<Host> hosts) throws DataAccessException {
-        String JsonId = "";
-        Map<String, Host> map = new HashMap<>();
-        for (int i = 1; i <= hosts.size(); i++) {
-            JsonId = "host" + i;
-            map.put(JsonId, hosts.get(i - 1));
-        }
-
-        //creates mapper instance
-        ObjectMapper mapper = new ObjectMapper();
-
-        //create an instance of DefaultPrettyPrinter()
-        ObjectWriter writer = mapper.writer(new DefaultPrettyPrinter());
-
-        try {
-
-            writer.writeValue(new File(filePath), map);
-
+        try (JsonGenerator generator = JSONMapper.createGenerator(new File(filePath), isPretty)) {
+            generator.writeStartObject();
+            for (int i = 1; i <= hosts.size(); i++) {
+                generator.writeFieldName("host" + i);
+                generator.writeObject(hosts.get(i - 1));
+            }
+            generator.writeEndObject();
         } catch (IOException ex) {
-
             throw new DataAccessException(ex.getMessage());
-
         }
     }
 }
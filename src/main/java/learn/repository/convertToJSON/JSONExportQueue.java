@@ -0,0 +1,119 @@
+package learn.repository.convertToJSON;
+
+import learn.repository.DataAccessException;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+public class JSONExportQueue {
+
+    public interface ExportTask {
+        void run() throws DataAccessException;
+    }
+
+    public interface FailureListener {
+        //called on the timer thread as soon as an export for key fails
+        void failed(String key, DataAccessException ex);
+    }
+
+    private final long debounceMillis;
+    private final ScheduledExecutorService executor;
+    private final FailureListener failureListener;
+    //export key -> latest requested export, older requests for the same key are dropped
+    private final Map<String, ExportTask> pending = new LinkedHashMap<>();
+    //only one drain writes files at a time, whether it runs on the timer or in flush
+    private final Object drainLock = new Object();
+    private boolean isScheduled;
+    private boolean isClosed;
+    private DataAccessException lastFailure;
+
+    //failures on the timer are only kept, the last one is thrown by the next flush
+    public JSONExportQueue(long debounceMillis) {
+        this(debounceMillis, (key, ex) -> {
+        });
+    }
+
+    public JSONExportQueue(long debounceMillis, FailureListener failureListener) {
+        this.debounceMillis = debounceMillis;
+        this.failureListener = failureListener;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "json-export");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void submit(String key, ExportTask task) throws DataAccessException {
+        synchronized (this) {
+            if (!isClosed) {
+                pending.put(key, task);
+                if (!isScheduled) {
+                    isScheduled = true;
+                    executor.schedule(() -> drain(true), debounceMillis, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        }
+        task.run();
+    }
+
+    public void flush() throws DataAccessException {
+        drain(false);
+
+        DataAccessException failure;
+        synchronized (this) {
+            failure = lastFailure;
+            lastFailure = null;
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    public void close() throws DataAccessException {
+        synchronized (this) {
+            isClosed = true;
+        }
+        try {
+            flush();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    //a flush reports through its own exception, so only the timer tells the listener
+    private void drain(boolean report) {
+        synchronized (drainLock) {
+            Map<String, ExportTask> tasks;
+            synchronized (this) {
+                tasks = new LinkedHashMap<>(pending);
+                pending.clear();
+                isScheduled = false;
+            }
+
+            for (Map.Entry<String, ExportTask> task : tasks.entrySet()) {
+                DataAccessException failure;
+                try {
+                    task.getValue().run();
+                    continue;
+                } catch (DataAccessException ex) {
+                    failure = ex;
+                } catch (RuntimeException ex) {
+                    //on the timer thread an escaping exception would be swallowed by the executor with the
+                    //rest of the batch, so it is kept like any other failed export
+                    failure = new DataAccessException("JSON export failed: " + ex);
+                }
+
+                synchronized (this) {
+                    lastFailure = failure;
+                }
+                if (report) {
+                    failureListener.failed(task.getKey(), failure);
+                }
+            }
+        }
+    }
+}
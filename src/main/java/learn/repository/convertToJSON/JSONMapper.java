@@ -0,0 +1,40 @@
+package learn.repository.convertToJSON;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+
+import java.io.File;
+import java.io.IOException;
+
+//ObjectMapper and ObjectWriter are thread-safe once configured, sharing them keeps Jackson's serializer caches warm
+public final class JSONMapper {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper()
+            .registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private static final ObjectWriter PRETTY_WRITER = MAPPER.writer().withDefaultPrettyPrinter();
+    private static final ObjectWriter COMPACT_WRITER = MAPPER.writer();
+
+    private JSONMapper() {
+    }
+
+    public static ObjectMapper getMapper() {
+        return MAPPER;
+    }
+
+    public static ObjectWriter getWriter(boolean isPretty) {
+        return isPretty ? PRETTY_WRITER : COMPACT_WRITER;
+    }
+
+    public static JsonGenerator createGenerator(File file, boolean isPretty) throws IOException {
+        JsonGenerator generator = MAPPER.getFactory().createGenerator(file, JsonEncoding.UTF8);
+        if (isPretty) {
+            generator.useDefaultPrettyPrinter();
+        }
+        return generator;
+    }
+}
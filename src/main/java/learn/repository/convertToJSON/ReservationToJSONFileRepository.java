@@ -1,67 +1,116 @@
 package learn.repository.convertToJSON;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectWriter;
-import learn.models.Guest;
-import learn.models.Host;
 import learn.models.Reservation;
 import learn.repository.DataAccessException;
+import learn.repository.ReservationDirectoryLoader;
 
 import java.io.*;
-import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.time.LocalDate;
-import java.time.format.DateTimeParseException;
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
+//the export is one object with a "hostReservations<n>" array per host; each array sits in a slot padded with
+//spaces, so writing one host overwrites just its slot, and only a host that outgrows its slot moves the rest
 public class ReservationToJSONFileRepository implements ReservationToJSONRepository {
 
+    //a slot holds the array plus a quarter again, and at least this many spaces, for the host to grow into
+    private static final int MIN_SLACK = 16;
+
     private final String filePath;
     private final String repository;
-    private final String delimiter = ",";
-    private final int reservationSplitFields = 5;
+    private final boolean isPretty;
+    private final ReservationDirectoryLoader loader;
+
+    //host id -> where that host's array sits in the export, in file order; null until the first full export
+    //only positions are kept, a host's slot is refreshed when that host is written through this repository, so
+    //another process changing some other host's file leaves that host's array stale until the next writeToJSON
+    private Map<String, Slot> slots;
+    //the export as this repository last left it; a different mtime or size means it was replaced behind our back
+    private FileTime writtenModifiedTime;
+    private long writtenSize = -1;
+
+    private static class Slot {
+        private long offset;
+        private final int capacity;
+
+        Slot(long offset, int capacity) {
+            this.offset = offset;
+            this.capacity = capacity;
+        }
+    }
 
     public ReservationToJSONFileRepository(String filePath, String repository) {
+        this(filePath, repository, true);
+    }
+
+    public ReservationToJSONFileRepository(String filePath, String repository, boolean isPretty) {
+        this(filePath, repository, isPretty, new ReservationDirectoryLoader());
+    }
+
+    public ReservationToJSONFileRepository(String filePath, String repository, boolean isPretty,
+                                           ReservationDirectoryLoader loader) {
         this.filePath = filePath;
         this.repository = repository;
+        this.isPretty = isPretty;
+        this.loader = loader;
     }
 
+    //host files are parsed in parallel; hosts whose file can't be read are left out and reported once the rest is written
     @Override
-    public void writeToJSON(File directory) throws DataAccessException {
-        String JsonId = "";
-        Map<String, List<Reservation>> allReservationsForHostMap = new HashMap<>();
-
+    public synchronized void writeToJSON(File directory) throws DataAccessException {
         if (directory == null || directory.length() == 0) {
             return;
         }
-        File[] directoryFiles = directory.listFiles();
-        if (directoryFiles == null || directoryFiles.length == 0) {
+        ReservationDirectoryLoader.LoadResult loaded = loader.loadAll(directory.getPath());
+        if (loaded.getReservations().isEmpty() && loaded.isSuccess()) {
             return;
         }
 
+        writeAll(loaded.getReservations());
 
-        for (int i = 1; i <= directoryFiles.length; i++) {
-            String file = getFileNameNoExtension(directoryFiles[i - 1].getName());
-            List<Reservation> reservations = findById(file);
-            JsonId = "hostReservations" + i;
-            allReservationsForHostMap.put(JsonId, reservations);
+        if (!loaded.isSuccess()) {
+            throw new DataAccessException("Could not export reservations for " + loaded.getErrors());
         }
+    }
 
-        ObjectMapper mapper = new ObjectMapper();
-        ObjectWriter writer = mapper.writer().withDefaultPrettyPrinter();
-
-        try {
-
-            writer.writeValue(new File(filePath), allReservationsForHostMap);
+    @Override
+    public synchronized void writeHostToJSON(String hostId) throws DataAccessException {
+        if (slots == null || !isUnchanged()) {
+            slots = null;
+            writeToJSON(new File(repository));
+            if (slots != null) {
+                return;
+            }
+            writeAll(new LinkedHashMap<>());
+        }
 
+        byte[] fragment = serialized(loader.load(repository, hostId));
+        Slot slot = slots.get(hostId);
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            if (slot == null) {
+                append(channel, hostId, fragment);
+            } else if (fragment.length <= slot.capacity) {
+                write(channel, slot.offset, padded(fragment, slot.capacity));
+            } else {
+                grow(channel, slot, fragment);
+            }
         } catch (IOException ex) {
-
+            slots = null;
             throw new DataAccessException(ex.getMessage());
-
         }
+        stamp();
     }
 
     @Override
@@ -70,54 +119,139 @@ public class ReservationToJSONFileRepository implements ReservationToJSONReposit
         return fileName.substring(0, extensionStart);
     }
 
-    private List<Reservation> findById(String id) throws DataAccessException {
-        ArrayList<Reservation> all = new ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(getFilePath(id)))) {
-
-            reader.readLine();
-
-            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
-                String[] fields = line.split(delimiter, -1);
-                if (fields.length == reservationSplitFields) {
-                    all.add(deserialized(fields, id));
+    //written to a temp file and moved into place, recording where each host's slot starts on the way
+    private void writeAll(Map<String, List<Reservation>> reservations) throws DataAccessException {
+        Path path = Paths.get(filePath);
+        Map<String, Slot> written = new LinkedHashMap<>();
+        try {
+            Path temp = Files.createTempFile(path.toAbsolutePath().getParent(), path.getFileName() + ".", ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(temp))) {
+                byte[] open = "{".getBytes(StandardCharsets.UTF_8);
+                out.write(open);
+                long position = open.length;
+                for (Map.Entry<String, List<Reservation>> entry : reservations.entrySet()) {
+                    byte[] prefix = entryPrefix(written.size() + 1);
+                    byte[] fragment = serialized(entry.getValue());
+                    Slot slot = new Slot(position + prefix.length, capacityFor(fragment.length));
+                    byte[] value = padded(fragment, slot.capacity);
+                    out.write(prefix);
+                    out.write(value);
+                    position += prefix.length + value.length;
+                    written.put(entry.getKey(), slot);
                 }
+                out.write(closing());
             }
-        } catch (FileNotFoundException ex) {
-            //do nothing
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
         } catch (IOException ex) {
+            slots = null;
             throw new DataAccessException(ex.getMessage());
         }
-        return all;
+        slots = written;
+        stamp();
+    }
+
+    //a host new to the export goes in front of the closing brace
+    private void append(FileChannel channel, String hostId, byte[] fragment) throws IOException {
+        byte[] prefix = entryPrefix(slots.size() + 1);
+        byte[] closing = closing();
+        long position = channel.size() - closing.length;
+        Slot slot = new Slot(position + prefix.length, capacityFor(fragment.length));
+
+        ByteBuffer buffer = ByteBuffer.allocate(prefix.length + slot.capacity + closing.length);
+        buffer.put(prefix).put(padded(fragment, slot.capacity)).put(closing).flip();
+        write(channel, position, buffer.array());
+        channel.truncate(position + buffer.limit());
+        slots.put(hostId, slot);
+    }
+
+    //the slot gets new slack and everything after it moves along by the difference
+    private void grow(FileChannel channel, Slot slot, byte[] fragment) throws IOException {
+        long tailStart = slot.offset + slot.capacity;
+        ByteBuffer tail = ByteBuffer.allocate(Math.toIntExact(channel.size() - tailStart));
+        while (tail.hasRemaining() && channel.read(tail, tailStart + tail.position()) >= 0) {
+            //read until the buffer is full
+        }
+        tail.flip();
+
+        int capacity = capacityFor(fragment.length);
+        ByteBuffer buffer = ByteBuffer.allocate(capacity + tail.limit());
+        buffer.put(padded(fragment, capacity)).put(tail).flip();
+        write(channel, slot.offset, buffer.array());
+        channel.truncate(slot.offset + buffer.limit());
+
+        long shift = capacity - slot.capacity;
+        boolean after = false;
+        for (Map.Entry<String, Slot> entry : slots.entrySet()) {
+            if (after) {
+                entry.getValue().offset += shift;
+            } else if (entry.getValue() == slot) {
+                after = true;
+                entry.setValue(new Slot(slot.offset, capacity));
+            }
+        }
+    }
+
+    private void write(FileChannel channel, long position, byte[] bytes) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
     }
 
-    private String getFilePath(String id) {
-        return Paths.get(repository, id + ".csv").toString();
+    //pretty fragments are serialized at the top level, so each of their lines moves in one level for the object
+    private byte[] serialized(List<Reservation> reservations) throws DataAccessException {
+        try {
+            if (!isPretty) {
+                return JSONMapper.getWriter(false).writeValueAsBytes(reservations);
+            }
+            String fragment = JSONMapper.getWriter(true).writeValueAsString(reservations);
+            return fragment.replace("\n", "\n  ").getBytes(StandardCharsets.UTF_8);
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
     }
 
-    private Reservation deserialized(String[] fields, String id) {
-        Reservation reservation = new Reservation();
-        reservation.setReservationId(Integer.parseInt(fields[0]));
-        reservation.setStartDate(stringToDate(fields[1]));
-        reservation.setEndDate(stringToDate(fields[2]));
+    private byte[] entryPrefix(int number) {
+        String separator = number == 1 ? "" : ",";
+        String field = "\"hostReservations" + number + "\"";
+        String prefix = isPretty ? separator + "\n  " + field + " : " : separator + field + ":";
+        return prefix.getBytes(StandardCharsets.UTF_8);
+    }
 
-        Guest guest = new Guest();
-        guest.setId(fields[3]);
-        reservation.setGuest(guest);
+    private byte[] closing() {
+        return (isPretty ? "\n}" : "}").getBytes(StandardCharsets.UTF_8);
+    }
 
-        Host host = new Host();
-        host.setId(id);
-        reservation.setHost(host);
+    private int capacityFor(int length) {
+        return length + Math.max(MIN_SLACK, length / 4);
+    }
 
-        reservation.setTotal(new BigDecimal(fields[4]));
+    //the fragment followed by spaces up to capacity, which JSON reads as whitespace between the value and the comma
+    private byte[] padded(byte[] fragment, int capacity) {
+        byte[] value = Arrays.copyOf(fragment, capacity);
+        Arrays.fill(value, fragment.length, capacity, (byte) ' ');
+        return value;
+    }
 
-        return reservation;
+    private boolean isUnchanged() throws DataAccessException {
+        try {
+            Path path = Paths.get(filePath);
+            return Files.getLastModifiedTime(path).equals(writtenModifiedTime) && Files.size(path) == writtenSize;
+        } catch (NoSuchFileException ex) {
+            return false;
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
     }
 
-    private LocalDate stringToDate(String date) {
+    private void stamp() throws DataAccessException {
         try {
-            return LocalDate.parse(date, Reservation.FORMATTER);
-        } catch (DateTimeParseException ex) {
-            return null;
+            Path path = Paths.get(filePath);
+            writtenModifiedTime = Files.getLastModifiedTime(path);
+            writtenSize = Files.size(path);
+        } catch (IOException ex) {
+            slots = null;
+            throw new DataAccessException(ex.getMessage());
         }
     }
 }
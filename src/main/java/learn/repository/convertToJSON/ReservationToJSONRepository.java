@@ -8,5 +8,7 @@ public interface ReservationToJSONRepository {
 
     void writeToJSON(File directory) throws DataAccessException;
 
+    void writeHostToJSON(String hostId) throws DataAccessException;
+
     String getFileNameNoExtension(String fileName) throws DataAccessException;
 }
@@ -0,0 +1,315 @@
+package learn.ui;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import learn.domain.*;
+import learn.models.*;
+import learn.repository.DataAccessException;
+import learn.repository.convertToJSON.JSONMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+//the console menu's operations as JSON endpoints, every response body is a Result
+//GET/POST/PUT/DELETE /hosts and /guests, GET/POST/PUT/DELETE /reservations, POST /reservations/quote,
+//GET /availability
+public class ApiController implements HttpHandler {
+
+    private final ReservationService reservationService;
+    private final HostService hostService;
+    private final GuestService guestService;
+    //request bodies may echo back derived fields such as fullName from a previous response
+    private final ObjectReader reader = JSONMapper.getMapper().reader()
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    public ApiController(ReservationService reservationService, GuestService guestService, HostService hostService) {
+        this.reservationService = reservationService;
+        this.guestService = guestService;
+        this.hostService = hostService;
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        try {
+            String path = exchange.getRequestURI().getPath();
+            switch (path) {
+                case "/hosts":
+                    handleUser(exchange, hostService, Host.class, "Host");
+                    break;
+                case "/guests":
+                    handleUser(exchange, guestService, Guest.class, "Guest");
+                    break;
+                case "/reservations":
+                    handleReservations(exchange);
+                    break;
+                case "/reservations/quote":
+                    handleQuote(exchange);
+                    break;
+                case "/availability":
+                    handleAvailability(exchange);
+                    break;
+                default:
+                    send(exchange, 404, error("Not found: " + path));
+            }
+        } catch (DataAccessException ex) {
+            send(exchange, 500, error(ex.getMessage()));
+        } catch (JsonProcessingException | DateTimeParseException | IllegalArgumentException ex) {
+            send(exchange, 400, error("Invalid request: " + ex.getMessage()));
+        } catch (RuntimeException ex) {
+            //without a response the JDK server just drops the connection
+            send(exchange, 500, error("Unexpected error: " + ex.getMessage()));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void handleUser(HttpExchange exchange, UserService userService, Class<? extends User> type,
+                            String userType) throws IOException, DataAccessException {
+        switch (exchange.getRequestMethod()) {
+            case "GET":
+                sendResult(exchange, 200, 404, userService.findByEmail(getQuery(exchange).get("email")));
+                break;
+            case "POST":
+                sendResult(exchange, 201, 400, userService.addUser(readBody(exchange, type)));
+                break;
+            case "PUT":
+                sendResult(exchange, 200, 400, userService.editUser(readBody(exchange, type)));
+                break;
+            case "DELETE":
+                Result<User> found = userService.findByEmail(getQuery(exchange).get("email"));
+                if (!found.isSuccess()) {
+                    sendResult(exchange, 200, 404, found);
+                    return;
+                }
+                Result<User> result = userService.deleteUser(found.getPayload());
+                if (result.isSuccess()) {
+                    result.setPayload(found.getPayload());
+                }
+                sendResult(exchange, 200, 400, result);
+                break;
+            default:
+                sendMethodNotAllowed(exchange, userType);
+        }
+    }
+
+    private void handleReservations(HttpExchange exchange) throws IOException, DataAccessException {
+        switch (exchange.getRequestMethod()) {
+            case "GET":
+                findReservations(exchange);
+                break;
+            case "POST":
+                addReservation(exchange);
+                break;
+            case "PUT":
+                updateReservation(exchange);
+                break;
+            case "DELETE":
+                deleteReservation(exchange);
+                break;
+            default:
+                sendMethodNotAllowed(exchange, "Reservation");
+        }
+    }
+
+    //GET /reservations?hostEmail=...[&guestEmail=...], upcoming reservations as the console lists them
+    private void findReservations(HttpExchange exchange) throws IOException, DataAccessException {
+        Map<String, String> query = getQuery(exchange);
+        Result<User> host = hostService.findByEmail(query.get("hostEmail"));
+        if (!host.isSuccess()) {
+            sendResult(exchange, 200, 404, host);
+            return;
+        }
+
+        List<Reservation> reservations;
+        if (query.containsKey("guestEmail")) {
+            Result<User> guest = guestService.findByEmail(query.get("guestEmail"));
+            if (!guest.isSuccess()) {
+                sendResult(exchange, 200, 404, guest);
+                return;
+            }
+            reservations = reservationService.findById(host.getPayload().getId(), guest.getPayload().getId());
+        } else {
+            reservations = reservationService.findById(host.getPayload().getId());
+        }
+
+        Result<List<Reservation>> result = new Result<>();
+        result.setPayload(reservations == null ? new ArrayList<>() : reservations);
+        send(exchange, 200, result);
+    }
+
+    //POST /reservations {"hostEmail", "guestEmail", "startDate", "endDate"}
+    private void addReservation(HttpExchange exchange) throws IOException, DataAccessException {
+        Reservation reservation = readNewReservation(exchange);
+        if (reservation != null) {
+            sendResult(exchange, 201, 400, reservationService.addReservation(reservation));
+        }
+    }
+
+    //POST /reservations/quote, same body as a booking; prices and checks the stay without saving it
+    private void handleQuote(HttpExchange exchange) throws IOException, DataAccessException {
+        if (!exchange.getRequestMethod().equals("POST")) {
+            sendMethodNotAllowed(exchange, "Quote");
+            return;
+        }
+
+        Reservation reservation = readNewReservation(exchange);
+        if (reservation != null) {
+            sendResult(exchange, 200, 400, reservationService.isNewReservationAvailable(reservation));
+        }
+    }
+
+    //GET /availability?state=...&startDate=...&endDate=...[&location=city or postal prefix], cheapest first
+    private void handleAvailability(HttpExchange exchange) throws IOException, DataAccessException {
+        if (!exchange.getRequestMethod().equals("GET")) {
+            sendMethodNotAllowed(exchange, "Availability");
+            return;
+        }
+
+        Map<String, String> query = getQuery(exchange);
+        sendResult(exchange, 200, 400, reservationService.searchAvailability(query.get("state"),
+                query.get("location"), parseDate(query.get("startDate")), parseDate(query.get("endDate"))));
+    }
+
+    //PUT /reservations {"hostEmail", "reservationId", "startDate", "endDate"}
+    private void updateReservation(HttpExchange exchange) throws IOException, DataAccessException {
+        JsonNode body = readBody(exchange);
+        Result<User> host = hostService.findByEmail(text(body, "hostEmail"));
+        if (!host.isSuccess()) {
+            sendResult(exchange, 200, 404, host);
+            return;
+        }
+
+        Reservation reservation = findReservation(host.getPayload(), body.path("reservationId").asInt());
+        if (reservation == null) {
+            send(exchange, 404, error("Reservation could not be found."));
+            return;
+        }
+
+        reservation.setHost(host.getPayload());
+        reservation.setStartDate(LocalDate.parse(text(body, "startDate")));
+        reservation.setEndDate(LocalDate.parse(text(body, "endDate")));
+        sendResult(exchange, 200, 400, reservationService.updateReservation(reservation));
+    }
+
+    //DELETE /reservations?hostEmail=...&reservationId=...
+    private void deleteReservation(HttpExchange exchange) throws IOException, DataAccessException {
+        Map<String, String> query = getQuery(exchange);
+        Result<User> host = hostService.findByEmail(query.get("hostEmail"));
+        if (!host.isSuccess()) {
+            sendResult(exchange, 200, 404, host);
+            return;
+        }
+
+        int reservationId = Integer.parseInt(query.getOrDefault("reservationId", "0"));
+        sendResult(exchange, 200, 404, reservationService.deleteReservation(host.getPayload().getId(), reservationId));
+    }
+
+    //answers 404 itself and returns null when the host or guest is unknown
+    private Reservation readNewReservation(HttpExchange exchange) throws IOException, DataAccessException {
+        JsonNode body = readBody(exchange);
+        Result<User> host = hostService.findByEmail(text(body, "hostEmail"));
+        if (!host.isSuccess()) {
+            sendResult(exchange, 200, 404, host);
+            return null;
+        }
+
+        Result<User> guest = guestService.findByEmail(text(body, "guestEmail"));
+        if (!guest.isSuccess()) {
+            sendResult(exchange, 200, 404, guest);
+            return null;
+        }
+
+        return new Reservation(host.getPayload(), guest.getPayload(),
+                LocalDate.parse(text(body, "startDate")), LocalDate.parse(text(body, "endDate")));
+    }
+
+    private Reservation findReservation(User host, int reservationId) throws DataAccessException {
+        List<Reservation> reservations = reservationService.findById(host.getId());
+        if (reservations == null) {
+            return null;
+        }
+        return reservations.stream()
+                .filter(r -> r.getReservationId() == reservationId)
+                .findFirst().orElse(null);
+    }
+
+    private LocalDate parseDate(String value) {
+        return value == null ? null : LocalDate.parse(value);
+    }
+
+    private String text(JsonNode body, String field) {
+        JsonNode value = body.get(field);
+        if (value == null || value.isNull()) {
+            throw new IllegalArgumentException(field + " is required.");
+        }
+        return value.asText();
+    }
+
+    private JsonNode readBody(HttpExchange exchange) throws IOException {
+        JsonNode body = reader.readTree(exchange.getRequestBody());
+        if (!(body instanceof ObjectNode)) {
+            throw new IllegalArgumentException("Body must be a JSON object.");
+        }
+        return body;
+    }
+
+    private <T> T readBody(HttpExchange exchange, Class<T> type) throws IOException {
+        return reader.forType(type).readValue(readBody(exchange));
+    }
+
+    private Map<String, String> getQuery(HttpExchange exchange) {
+        Map<String, String> query = new HashMap<>();
+        String raw = exchange.getRequestURI().getRawQuery();
+        if (raw == null || raw.isEmpty()) {
+            return query;
+        }
+
+        for (String pair : raw.split("&")) {
+            int equals = pair.indexOf('=');
+            String key = equals < 0 ? pair : pair.substring(0, equals);
+            String value = equals < 0 ? "" : pair.substring(equals + 1);
+            query.put(URLDecoder.decode(key, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+        }
+        return query;
+    }
+
+    private void sendMethodNotAllowed(HttpExchange exchange, String resource) throws IOException {
+        String allowed = resource.equals("Quote") ? "POST" : resource.equals("Availability") ? "GET" : "GET, POST, PUT, DELETE";
+        exchange.getResponseHeaders().set("Allow", allowed);
+        send(exchange, 405, error(exchange.getRequestMethod() + " is not supported for " + resource + "."));
+    }
+
+    private void sendResult(HttpExchange exchange, int successStatus, int failureStatus,
+                            Response result) throws IOException {
+        send(exchange, result.isSuccess() ? successStatus : failureStatus, result);
+    }
+
+    //a fixed Content-Length lets the connection be reused for the client's next request
+    private void send(HttpExchange exchange, int status, Response body) throws IOException {
+        byte[] bytes = JSONMapper.getWriter(false).writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private Result<Void> error(String message) {
+        Result<Void> result = new Result<>();
+        result.addErrorMessage(message);
+        return result;
+    }
+}
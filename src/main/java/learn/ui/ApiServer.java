@@ -0,0 +1,86 @@
+package learn.ui;
+
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+//serves the ApiController over HTTP, run instead of the console menu with App --server
+public class ApiServer {
+
+    private final ApiController controller;
+    private int port = 8080;
+    private int workerThreads = Runtime.getRuntime().availableProcessors() * 2;
+    private int keepAliveSeconds = 30;
+    private int maxIdleConnections = 200;
+    private HttpServer server;
+    private ExecutorService workers;
+
+    public ApiServer(ApiController controller) {
+        this.controller = controller;
+    }
+
+    public void setPort(int port) {
+        this.port = port;
+    }
+
+    public void setWorkerThreads(int workerThreads) {
+        this.workerThreads = workerThreads;
+    }
+
+    public void setKeepAliveSeconds(int keepAliveSeconds) {
+        this.keepAliveSeconds = keepAliveSeconds;
+    }
+
+    public void setMaxIdleConnections(int maxIdleConnections) {
+        this.maxIdleConnections = maxIdleConnections;
+    }
+
+    //the actual port, which differs from the configured one when that was 0
+    public int getPort() {
+        return server == null ? port : server.getAddress().getPort();
+    }
+
+    public synchronized void start() throws IOException {
+        if (server != null) {
+            return;
+        }
+
+        //the JDK server reads its keep-alive settings once, when the first server is created
+        System.setProperty("sun.net.httpserver.idleInterval", String.valueOf(keepAliveSeconds));
+        System.setProperty("sun.net.httpserver.maxIdleConnections", String.valueOf(maxIdleConnections));
+
+        AtomicInteger count = new AtomicInteger();
+        workers = Executors.newFixedThreadPool(workerThreads, runnable -> {
+            Thread thread = new Thread(runnable, "api-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        server = HttpServer.create(new InetSocketAddress(port), 0);
+        server.createContext("/", controller);
+        server.setExecutor(workers);
+        server.start();
+    }
+
+    //lets in-flight requests finish for up to a second
+    public synchronized void stop() {
+        if (server == null) {
+            return;
+        }
+
+        server.stop(1);
+        workers.shutdown();
+        try {
+            workers.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        server = null;
+        workers = null;
+    }
+}
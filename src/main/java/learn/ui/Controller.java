@@ -1,24 +1,33 @@
 package learn.ui;
 
 import learn.domain.*;
+import learn.domain.reporting.ReportService;
+import learn.domain.reporting.RevenueReport;
 import learn.models.*;
 import learn.repository.DataAccessException;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 public class Controller {
 
+    private static final int REPORT_LIMIT = 50;
+    private static final int SEARCH_LIMIT = 25;
+
     private final View view;
     private final ReservationService reservationService;
     private final HostService hostService;
     private final GuestService guestService;
+    private final ReportService reportService;
 
-    public Controller(View view, ReservationService reservationService, GuestService guestService, HostService hostService) {
+    public Controller(View view, ReservationService reservationService, GuestService guestService, HostService hostService,
+                      ReportService reportService) {
         this.view = view;
         this.reservationService = reservationService;
         this.guestService = guestService;
         this.hostService = hostService;
+        this.reportService = reportService;
     }
 
     public void run() {
@@ -83,6 +92,18 @@ public class Controller {
                     view.displayHeader(MainMenu.DELETE_GUEST.getTitle());
                     deleteUser(guestService, "Guest");
                     break;
+
+                case IMPORT_RESERVATIONS:
+                    importReservations();
+                    break;
+
+                case VIEW_REPORT:
+                    viewReport();
+                    break;
+
+                case SEARCH_AVAILABILITY:
+                    searchAvailability();
+                    break;
             }
         } while (mainMenu != MainMenu.EXIT);
     }
@@ -114,7 +135,7 @@ public class Controller {
         LocalDate endDate = view.chooseEndDate(startDate);
 
         Reservation reservation = new Reservation(host, guest, startDate, endDate);
-        Result<Reservation> result = reservationService.isReservationAvailable(reservation);
+        Result<Reservation> result = reservationService.isNewReservationAvailable(reservation);
 
         if (!result.isSuccess()) {
             view.displayStatus(false, result.getMessages());
@@ -306,6 +327,51 @@ public class Controller {
         }
     }
 
+    //import
+    private void importReservations() throws DataAccessException {
+        view.displayHeader(MainMenu.IMPORT_RESERVATIONS.getTitle());
+
+        String filePath = view.chooseString("File (host_email,guest_email,start_date,end_date): ");
+        Result<List<Reservation>> result = reservationService.importReservations(filePath);
+
+        List<String> messages = new ArrayList<>();
+        messages.add(result.getPayload().size() + " reservation(s) imported.");
+        messages.addAll(result.getMessages());
+        view.displayStatus(result.isSuccess(), messages);
+    }
+
+    //search
+    private void searchAvailability() throws DataAccessException {
+        view.displayHeader(MainMenu.SEARCH_AVAILABILITY.getTitle());
+
+        String state = view.chooseState();
+        String location = view.chooseLocation();
+        LocalDate startDate = view.chooseStartDate();
+        LocalDate endDate = view.chooseEndDate(startDate);
+
+        Result<List<Reservation>> result = reservationService.searchAvailability(state, location, startDate, endDate);
+        if (result.isSuccess()) {
+            view.displayAvailableHosts(result.getPayload(), SEARCH_LIMIT);
+        } else {
+            view.displayStatus(false, result.getMessages());
+        }
+    }
+
+    //report
+    private void viewReport() throws DataAccessException {
+        view.displayHeader(MainMenu.VIEW_REPORT.getTitle());
+
+        LocalDate from = view.chooseReportStart(LocalDate.now().withDayOfMonth(1));
+        LocalDate to = view.chooseReportEnd(from.plusMonths(1), from);
+
+        Result<RevenueReport> result = reportService.buildReport(from, to);
+        if (result.isSuccess()) {
+            view.displayReport(result.getPayload(), REPORT_LIMIT);
+        } else {
+            view.displayStatus(false, result.getMessages());
+        }
+    }
+
     //support methods
     private User getUser(UserService userService, String userType) throws DataAccessException {
         String email = view.chooseUser(userType);
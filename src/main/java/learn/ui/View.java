@@ -1,16 +1,25 @@
 package learn.ui;
 
+import learn.domain.reporting.HostReport;
+import learn.domain.reporting.RevenueReport;
+import learn.domain.reporting.StateReport;
 import learn.models.*;
+import learn.repository.DataAccessException;
+import learn.repository.convertToJSON.JSONExportQueue;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
-public class View {
+public class View implements JSONExportQueue.FailureListener {
 
     private final ConsoleIO io;
+    //background export failures, held until the next menu so they don't land in the middle of a prompt
+    private final Queue<String> exportFailures = new ConcurrentLinkedQueue<>();
 
     public View(ConsoleIO io) {
         this.io = io;
@@ -20,6 +29,7 @@ public class View {
         int min = 0;
         int max = 0;
         int input = -1;
+        displayExportFailures();
         displayHeader("Main Menu");
 
         ArrayList<MainMenu> mainMenuOptions = new ArrayList<>(Arrays.asList(MainMenu.values()));
@@ -130,6 +140,10 @@ public class View {
         return io.readRequiredBigDecimal(prompt);
     }
 
+    public String chooseLocation() {
+        return io.readString("City or Postal Code Prefix (blank for the whole state): ");
+    }
+
     public String chooseUser(String userType) {
         return io.readRequiredEmail(userType + " Email: ");
     }
@@ -142,6 +156,15 @@ public class View {
         return io.readRequiredDate("End Date: ", startDate);
     }
 
+    //reports may look back, so any date is accepted and blank takes the default
+    public LocalDate chooseReportStart(LocalDate defaultDate) {
+        return io.readDate("Start Date [" + defaultDate + "]: ", defaultDate);
+    }
+
+    public LocalDate chooseReportEnd(LocalDate defaultDate, LocalDate startDate) {
+        return io.readDate("End Date, exclusive [" + defaultDate + "]: ", defaultDate, startDate);
+    }
+
     public int chooseReservation(List<Reservation> reservations) {
         int choice = -1;
         do {
@@ -163,6 +186,12 @@ public class View {
         return io.readBoolean("Are you sure you would like to delete " + user.getEmail() + "? [y/n]: ");
     }
 
+    //called on the export timer thread
+    @Override
+    public void failed(String key, DataAccessException ex) {
+        exportFailures.add("JSON export of " + key + " failed: " + ex.getMessage());
+    }
+
     //display
     public void displayHeader(String message) {
         io.println("");
@@ -170,6 +199,16 @@ public class View {
         io.println("=".repeat(message.length()));
     }
 
+    private void displayExportFailures() {
+        if (exportFailures.isEmpty()) {
+            return;
+        }
+        displayHeader("Export Error");
+        for (String failure = exportFailures.poll(); failure != null; failure = exportFailures.poll()) {
+            io.println(failure);
+        }
+    }
+
     public void displayException(Exception ex) {
         displayHeader("Critical Error Occurred");
         io.println(ex.getMessage());
@@ -213,6 +252,45 @@ public class View {
         }
     }
 
+    public void displayAvailableHosts(List<Reservation> quotes, int limit) {
+        displayHeader(quotes.size() + " Available Hosts");
+        if (quotes.size() > limit) {
+            io.printf("Showing the %s cheapest%n", limit);
+        }
+        for (Reservation q : quotes.subList(0, Math.min(limit, quotes.size()))) {
+            io.printf("Total: %s, %s, %s, Email: %s%n",
+                    q.getTotal(),
+                    q.getHost().getFullName(),
+                    q.getHost().getFullAddress(),
+                    q.getHost().getEmail());
+        }
+    }
+
+    public void displayReport(RevenueReport report, int limit) {
+        displayHeader("Revenue " + report.getFrom() + " to " + report.getTo());
+        io.printf("Total: %s across %s hosts%n", report.getTotalRevenue(), report.getHosts().size());
+
+        displayHeader("Top " + limit + " Hosts by Revenue");
+        for (HostReport h : report.getTopHostsByRevenue(limit)) {
+            displayHostReport(h);
+        }
+
+        displayHeader("Top " + limit + " Hosts by Nights Booked");
+        for (HostReport h : report.getTopHostsByNights(limit)) {
+            displayHostReport(h);
+        }
+
+        displayHeader("By State");
+        for (StateReport s : report.getStates()) {
+            io.printf("%s: %s, Hosts: %s, Nights: %s, Occupancy: %.1f%%%n",
+                    s.getState(),
+                    s.getRevenue(),
+                    s.getHostCount(),
+                    s.getNightsBooked(),
+                    s.getOccupancyRate() * 100);
+        }
+    }
+
     public boolean displaySummary(Reservation reservation) {
         displayHeader("Summary");
         io.printf("Start Date: %s%n", reservation.getStartDate());
@@ -222,6 +300,15 @@ public class View {
     }
 
     //support methods
+    private void displayHostReport(HostReport h) {
+        io.printf("%s, %s: %s, Nights: %s, Occupancy: %.1f%%%n",
+                h.getHost().getEmail(),
+                h.getHost().getState(),
+                h.getRevenue(),
+                h.getNightsBooked(),
+                h.getOccupancyRate() * 100);
+    }
+
     private String cleanField(String input) {
         return input.replace(",", "@@@");
     }
@@ -250,8 +337,11 @@ public class View {
 
         guest.setId(user.getId());
 
-        String[] nameFields = user.getFullName().split(",", -1);
-        guest.setFirstName(nameFields[0]);
+        if (user instanceof Guest) {
+            guest.setFirstName(((Guest) user).getFirstName());
+        } else {
+            guest.setFirstName(user.getFullName().split(",", -1)[0]);
+        }
         guest.setLastName(user.getLastName());
         guest.setEmail(user.getEmail());
         guest.setPhone(user.getPhone());
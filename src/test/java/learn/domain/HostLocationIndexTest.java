@@ -0,0 +1,64 @@
+package learn.domain;
+
+import learn.models.Host;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HostLocationIndexTest {
+
+    HostLocationIndex index = new HostLocationIndex(List.of(
+            makeHost("a@test.com", "TX", "Austin", "78701"),
+            makeHost("b@test.com", "TX", "Austin", "78745"),
+            makeHost("c@test.com", "TX", "Amarillo", "79101"),
+            makeHost("d@test.com", "ID", "Boise", "83701")));
+
+    @Test
+    void shouldFindEveryHostInState() {
+        assertEquals(3, index.find("tx", null).size());
+        assertEquals(3, index.find("TX", " ").size());
+    }
+
+    @Test
+    void shouldFindHostsByCityIgnoringCase() {
+        List<Host> actual = index.find("TX", "austin");
+        assertEquals(2, actual.size());
+        assertEquals(0, index.find("ID", "Austin").size());
+    }
+
+    @Test
+    void shouldFindHostsByPostalPrefix() {
+        assertEquals(2, index.find("TX", "787").size());
+        assertEquals(1, index.find("TX", "78745").size());
+        assertEquals(3, index.find("TX", "7").size());
+        assertEquals(0, index.find("TX", "80").size());
+    }
+
+    @Test
+    void shouldNotLetCallersChangeIndex() {
+        assertThrows(UnsupportedOperationException.class, () -> index.find("TX", null).clear());
+        assertThrows(UnsupportedOperationException.class, () -> index.find("TX", "Austin").clear());
+        assertThrows(UnsupportedOperationException.class, () -> index.find("TX", "Dallas").add(new Host()));
+
+        assertEquals(3, index.find("TX", null).size());
+        assertEquals(2, index.find("TX", "Austin").size());
+        assertEquals(0, index.find("TX", "Dallas").size());
+    }
+
+    @Test
+    void shouldFindNothingForUnknownState() {
+        assertEquals(0, index.find("NV", null).size());
+        assertEquals(0, index.find(null, null).size());
+    }
+
+    private Host makeHost(String email, String state, String city, String postalCode) {
+        Host host = new Host();
+        host.setEmail(email);
+        host.setState(state);
+        host.setCity(city);
+        host.setPostalCode(postalCode);
+        return host;
+    }
+}
@@ -0,0 +1,74 @@
+package learn.domain;
+
+import learn.models.Reservation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationIntervalIndexTest {
+
+    private final LocalDate day = LocalDate.of(2030, 6, 10);
+
+    ReservationIntervalIndex index = new ReservationIntervalIndex(List.of(
+            makeReservation(1, day.plusDays(20), day.plusDays(25)),
+            makeReservation(2, day, day.plusDays(3)),
+            makeReservation(3, day.plusDays(10), day.plusDays(12))));
+
+    @Test
+    void shouldFindOverlapWithExistingReservation() {
+        assertTrue(index.overlaps(day.plusDays(1), day.plusDays(2), 0));
+        assertTrue(index.overlaps(day.minusDays(2), day.plusDays(1), 0));
+        assertTrue(index.overlaps(day.plusDays(24), day.plusDays(30), 0));
+    }
+
+    @Test
+    void shouldFindOverlapIfNewReservationEnclosesExisting() {
+        assertTrue(index.overlaps(day.plusDays(9), day.plusDays(13), 0));
+    }
+
+    @Test
+    void shouldAllowStartOnExistingEndDate() {
+        assertFalse(index.overlaps(day.plusDays(3), day.plusDays(10), 0));
+        assertFalse(index.overlaps(day.minusDays(3), day, 0));
+    }
+
+    @Test
+    void shouldIgnoreReservationBeingUpdated() {
+        assertFalse(index.overlaps(day.plusDays(9), day.plusDays(13), 3));
+    }
+
+    @Test
+    void shouldStayInSyncWithWrites() {
+        index.add(makeReservation(4, day.plusDays(5), day.plusDays(7)));
+        assertTrue(index.overlaps(day.plusDays(6), day.plusDays(8), 0));
+        assertEquals(4, index.size());
+
+        index.update(makeReservation(4, day.plusDays(30), day.plusDays(32)));
+        assertFalse(index.overlaps(day.plusDays(6), day.plusDays(8), 0));
+        assertTrue(index.overlaps(day.plusDays(31), day.plusDays(40), 0));
+
+        index.remove(3);
+        assertFalse(index.overlaps(day.plusDays(9), day.plusDays(13), 0));
+        assertEquals(3, index.size());
+    }
+
+    @Test
+    void shouldGrowPastInitialCapacity() {
+        for (int i = 0; i < 20; i++) {
+            index.add(makeReservation(10 + i, day.plusDays(100 + i * 2), day.plusDays(101 + i * 2)));
+        }
+
+        assertEquals(23, index.size());
+        assertTrue(index.overlaps(day.plusDays(120), day.plusDays(121), 0));
+        assertFalse(index.overlaps(day.plusDays(121), day.plusDays(122), 0));
+    }
+
+    private Reservation makeReservation(int id, LocalDate startDate, LocalDate endDate) {
+        Reservation reservation = new Reservation(null, null, startDate, endDate);
+        reservation.setReservationId(id);
+        return reservation;
+    }
+}
@@ -1,14 +1,24 @@
 package learn.domain;
 
+import learn.domain.pricing.PricingEngine;
 import learn.repository.DataAccessException;
+import learn.models.Guest;
+import learn.models.Host;
 import learn.models.Reservation;
 import learn.repository.GuestRepositoryDouble;
 import learn.repository.HostRepositoryDouble;
+import learn.repository.ReservationImportFileRepository;
 import learn.repository.ReservationRepositoryDouble;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -134,6 +144,39 @@ class ReservationServiceTest {
         assertEquals(expected, actual);
     }
 
+    @Test
+    void shouldPriceLongStayWithWholeWeeksAndLeftoverNights() {
+        Reservation reservation = makeReservation();
+        //Wednesday through the Thursday 15 days later: 16 nights, 4 of them Friday or Saturday
+        reservation.setStartDate(LocalDate.of(2021, 10, 13));
+        reservation.setEndDate(LocalDate.of(2021, 10, 28));
+        BigDecimal actual = service.getPrice(reservation);
+
+        BigDecimal expected = new BigDecimal("3400.00");
+        assertEquals(expected, actual);
+    }
+
+    @Test
+    void shouldMatchNightByNightTotalForEveryStartDay() {
+        Reservation reservation = makeReservation();
+        for (int start = 0; start < 7; start++) {
+            for (int length = 0; length < 30; length++) {
+                LocalDate startDate = LocalDate.of(2021, 10, 11).plusDays(start);
+                reservation.setStartDate(startDate);
+                reservation.setEndDate(startDate.plusDays(length));
+
+                BigDecimal expected = new BigDecimal("0.00");
+                for (LocalDate d = startDate; !d.isAfter(startDate.plusDays(length)); d = d.plusDays(1)) {
+                    boolean isWeekend = d.getDayOfWeek() == DayOfWeek.FRIDAY
+                            || d.getDayOfWeek() == DayOfWeek.SATURDAY;
+                    expected = expected.add(isWeekend ? new BigDecimal("250") : new BigDecimal("200"));
+                }
+
+                assertEquals(expected, service.getPrice(reservation));
+            }
+        }
+    }
+
     @Test
     void shouldNotAddReservationIfSetId() throws DataAccessException {
         Reservation reservation = makeReservation();
@@ -299,7 +342,185 @@ class ReservationServiceTest {
         assertFalse(result.isSuccess());
     }
 
+    @Test
+    void shouldImportValidRowsAndReportRejectedOnes() throws DataAccessException {
+        LocalDate start = LocalDate.now().plusMonths(2);
+        List<Reservation> rows = List.of(
+                makeImportRow(HostRepositoryDouble.HOST.getEmail(), start, start.plusDays(3)),
+                makeImportRow(HostRepositoryDouble.HOST.getEmail(), start.plusDays(1), start.plusDays(4)),
+                makeImportRow("nobody@test.com", start, start.plusDays(3)),
+                makeImportRow(HostRepositoryDouble.HOST.getEmail(), start.plusDays(3), start.plusDays(5)));
+
+        Result<List<Reservation>> result = service.importReservations(rows);
+
+        assertFalse(result.isSuccess());
+        assertEquals(List.of("Row 2: Overlaps an earlier row in the import.", "Row 3: Host not found."),
+                result.getMessages());
+        assertEquals(2, result.getPayload().size());
+        assertNotNull(rows.get(3).getTotal());
+        assertEquals(HostRepositoryDouble.HOST_ID, rows.get(3).getHost().getId());
+    }
+
+    @Test
+    void shouldReportUnreadableImportRowsByNumber(@TempDir Path directory) throws IOException, DataAccessException {
+        LocalDate start = LocalDate.now().plusMonths(2);
+        String row = HostRepositoryDouble.HOST.getEmail() + "," + GuestRepositoryDouble.GUEST.getEmail() + ",";
+        Path file = directory.resolve("import.csv");
+        Files.writeString(file, "host_email,guest_email,start_date,end_date\n"
+                + row + start + "," + start.plusDays(3) + "\n"
+                + "\n"
+                + HostRepositoryDouble.HOST.getEmail() + "\n"
+                + row + "not a date," + start.plusDays(6) + "\n");
+        ReservationService importService = new ReservationService(new ReservationRepositoryDouble(),
+                new GuestRepositoryDouble(), new HostRepositoryDouble(), new PricingEngine(),
+                new ReservationImportFileRepository());
+
+        Result<List<Reservation>> result = importService.importReservations(file.toString());
+
+        assertEquals(1, result.getPayload().size());
+        assertEquals(2, result.getMessages().size());
+        assertTrue(result.getMessages().get(0).startsWith("Row 2: "));
+        assertEquals("Row 3: Dates cannot be null.", result.getMessages().get(1));
+    }
+
+    @Test
+    void shouldFindAvailableHostsByStateAndCity() throws DataAccessException {
+        LocalDate start = LocalDate.now().plusMonths(2);
+
+        Result<List<Reservation>> result = service.searchAvailability("id", "Boise", start, start.plusDays(3));
+
+        assertTrue(result.isSuccess());
+        assertEquals(1, result.getPayload().size());
+        assertEquals(HostRepositoryDouble.HOST_ID, result.getPayload().get(0).getHost().getId());
+        assertEquals(service.getPrice(result.getPayload().get(0)), result.getPayload().get(0).getTotal());
+        assertEquals(1, service.searchAvailability("ID", "837", start, start.plusDays(3)).getPayload().size());
+        assertEquals(0, service.searchAvailability("ID", "Nampa", start, start.plusDays(3)).getPayload().size());
+        assertEquals(0, service.searchAvailability("TX", null, start, start.plusDays(3)).getPayload().size());
+    }
+
+    @Test
+    void shouldLeaveBookedHostsOutOfSearch() throws DataAccessException {
+        //the double hands back reservations as given, this one numbers and keeps them like the file repository
+        ReservationService bookingService = new ReservationService(new ReservationRepositoryDouble() {
+            private final List<Reservation> added = new ArrayList<>();
+
+            @Override
+            public List<Reservation> findById(String id) throws DataAccessException {
+                List<Reservation> all = super.findById(id);
+                added.stream().filter(r -> r.getHost().getId().equals(id)).forEach(all::add);
+                return all;
+            }
+
+            @Override
+            public Reservation add(Reservation reservation) {
+                reservation.setReservationId(99);
+                added.add(reservation);
+                return reservation;
+            }
+        }, new GuestRepositoryDouble(), new HostRepositoryDouble());
+        LocalDate start = LocalDate.now().plusMonths(2);
+        assertTrue(bookingService.addReservation(new Reservation(HostRepositoryDouble.HOST, GuestRepositoryDouble.GUEST,
+                start, start.plusDays(3))).isSuccess());
+
+        assertEquals(0, bookingService.searchAvailability("ID", null, start.plusDays(1), start.plusDays(2))
+                .getPayload().size());
+        assertEquals(1, bookingService.searchAvailability("ID", null, start.plusDays(3), start.plusDays(5))
+                .getPayload().size());
+    }
+
+    @Test
+    void shouldRebuildIndexWhenRepositoryVersionMoves() throws DataAccessException {
+        //stands in for the file repository seeing another process add a booking
+        List<Reservation> written = new ArrayList<>();
+        long[] version = {0};
+        ReservationService versionedService = new ReservationService(new ReservationRepositoryDouble() {
+            @Override
+            public List<Reservation> findById(String id) throws DataAccessException {
+                List<Reservation> all = super.findById(id);
+                all.addAll(written);
+                return all;
+            }
+
+            @Override
+            public long getVersion(String hostId) {
+                return version[0];
+            }
+        }, new GuestRepositoryDouble(), new HostRepositoryDouble());
+        LocalDate start = LocalDate.now().plusMonths(2);
+        Reservation reservation = new Reservation(HostRepositoryDouble.HOST, GuestRepositoryDouble.GUEST, start,
+                start.plusDays(3));
+        reservation.setReservationId(2);
+        assertTrue(versionedService.isReservationAvailable(reservation).isSuccess());
+
+        Reservation other = new Reservation(HostRepositoryDouble.HOST, GuestRepositoryDouble.GUEST, start,
+                start.plusDays(2));
+        other.setReservationId(7);
+        written.add(other);
+        version[0]++;
+
+        assertFalse(versionedService.updateReservation(reservation).isSuccess());
+    }
+
+    @Test
+    void shouldUpdateLegacyReservationWithIdZeroOverItsOwnNights() throws DataAccessException {
+        LocalDate start = LocalDate.now().plusMonths(2);
+        Reservation legacy = new Reservation(HostRepositoryDouble.HOST, GuestRepositoryDouble.GUEST, start,
+                start.plusDays(3));
+        ReservationService legacyService = new ReservationService(new ReservationRepositoryDouble() {
+            @Override
+            public List<Reservation> findById(String id) throws DataAccessException {
+                List<Reservation> all = super.findById(id);
+                all.add(legacy);
+                return all;
+            }
+        }, new GuestRepositoryDouble(), new HostRepositoryDouble());
+
+        Reservation moved = new Reservation(HostRepositoryDouble.HOST, GuestRepositoryDouble.GUEST,
+                start.plusDays(1), start.plusDays(5));
+        assertTrue(legacyService.updateReservation(moved).isSuccess());
+        assertFalse(legacyService.isNewReservationAvailable(moved).isSuccess());
+    }
+
+    @Test
+    void shouldNotIgnoreLegacyRowsWithIdZeroWhenBooking() throws DataAccessException {
+        //past the calendar's horizon, so the check falls through to the interval index
+        LocalDate start = LocalDate.now().plusYears(3);
+        Reservation legacy = new Reservation(HostRepositoryDouble.HOST, GuestRepositoryDouble.GUEST, start,
+                start.plusDays(3));
+        ReservationService legacyService = new ReservationService(new ReservationRepositoryDouble() {
+            @Override
+            public List<Reservation> findById(String id) throws DataAccessException {
+                List<Reservation> all = super.findById(id);
+                all.add(legacy);
+                return all;
+            }
+        }, new GuestRepositoryDouble(), new HostRepositoryDouble());
+
+        Result<Reservation> result = legacyService.addReservation(new Reservation(HostRepositoryDouble.HOST,
+                GuestRepositoryDouble.GUEST, start.plusDays(1), start.plusDays(2)));
+        assertFalse(result.isSuccess());
+        assertTrue(result.getMessages().contains("Pre-existing reservation"));
+    }
+
+    @Test
+    void shouldNotSearchWithoutStateOrWithPastDates() throws DataAccessException {
+        LocalDate start = LocalDate.now().plusMonths(2);
+        assertFalse(service.searchAvailability(null, null, start, start.plusDays(3)).isSuccess());
+        assertFalse(service.searchAvailability("ID", null, LocalDate.now().minusDays(3), LocalDate.now()).isSuccess());
+        assertFalse(service.searchAvailability("ID", null, start, start).isSuccess());
+    }
+
     //support method
+    private Reservation makeImportRow(String hostEmail, LocalDate startDate, LocalDate endDate) {
+        Host host = new Host();
+        host.setEmail(hostEmail);
+
+        Guest guest = new Guest();
+        guest.setEmail(GuestRepositoryDouble.GUEST.getEmail());
+
+        return new Reservation(host, guest, startDate, endDate);
+    }
+
     private Reservation makeReservation() {
         Reservation reservation = new Reservation();
 
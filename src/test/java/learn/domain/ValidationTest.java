@@ -0,0 +1,106 @@
+package learn.domain;
+
+import learn.models.Guest;
+import learn.models.Host;
+import learn.models.User;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ValidationTest {
+
+    //the pattern the email scanner replaced
+    private static final Pattern EMAIL = Pattern.compile(
+            "^[\\w!#$%&'*+/=?`{|}~^-]+(?:\\.[\\w!#$%&'*+/=?`{|}~^-]+)*@(?:[a-zA-Z0-9-]+\\.)+[a-zA-Z]{2,6}$");
+
+    Validation validation = new Validation();
+
+    @Test
+    void shouldAcceptSameEmailsAsThePattern() {
+        String[] emails = {"test@test.com", "a.b_c+d@mail.example.org", "x@y.io", "first.last@sub-1.domain.museum",
+                "test", "test@", "test@test", "test@test@test.com", ".test@test.com", "test.@test.com",
+                "te..st@test.com", "test@.com", "test@test..com", "test@test.c", "test@test.abcdefg",
+                "test@test.c0m", "te st@test.com", "test@te_st.com", "@test.com", "test@test.com.", "t\u00e9st@test.com",
+                "!#$%&'*+/=?`{|}~^-@a-b.cd", "test@test.com\n"};
+
+        for (String email : emails) {
+            assertEquals(EMAIL.matcher(email).matches(), validation.validateEmail(email).isSuccess(), email);
+        }
+    }
+
+    @Test
+    void shouldValidatePhoneStateAndPostalCode() {
+        assertTrue(validation.validatePhone("(111) 1111111").isSuccess());
+        assertFalse(validation.validatePhone("(111)1111111").isSuccess());
+        assertFalse(validation.validatePhone("(111) 111111").isSuccess());
+        assertFalse(validation.validatePhone("(1a1) 1111111").isSuccess());
+        assertFalse(validation.validatePhone(null).isSuccess());
+
+        assertTrue(validation.validateState("MN").isSuccess());
+        assertFalse(validation.validateState("M").isSuccess());
+        assertFalse(validation.validateState("M1").isSuccess());
+        assertFalse(validation.validateState(null).isSuccess());
+
+        Host host = makeHost();
+        assertTrue(validation.validateFullAddress(host).isSuccess());
+        host.setPostalCode("+1234");
+        assertFalse(validation.validateFullAddress(host).isSuccess());
+        host.setPostalCode("123456");
+        assertFalse(validation.validateFullAddress(host).isSuccess());
+        host.setPostalCode("12345");
+        host.setCity("Test, Town");
+        assertFalse(validation.validateFullAddress(host).isSuccess());
+    }
+
+    @Test
+    void shouldReturnResultCallerCanFillIn() {
+        Result<User> result = validation.validateUser(makeHost(), "Host");
+        assertTrue(result.isSuccess());
+
+        result.setPayload(makeHost());
+        result.addErrorMessage("Test");
+        assertFalse(result.isSuccess());
+        assertTrue(validation.validateUser(makeHost(), "Host").isSuccess());
+    }
+
+    @Test
+    void shouldValidateAllInOrder() {
+        List<User> users = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            Host host = makeHost();
+            if (i % 3 == 0) {
+                host.setEmail("host" + i);
+            }
+            users.add(host);
+        }
+        Guest guest = new Guest(null, "Test", "Test", "test@test.com", "(111) 1111111", "MN", false);
+        users.add(guest);
+
+        List<Result<User>> results = validation.validateAll(users);
+
+        assertEquals(users.size(), results.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i % 3 != 0, results.get(i).isSuccess());
+        }
+        assertTrue(results.get(1000).isSuccess());
+    }
+
+    private Host makeHost() {
+        Host host = new Host();
+        host.setLastName("Test");
+        host.setEmail("Test@test.com");
+        host.setPhone("(111) 1111111");
+        host.setAddress("1 Test");
+        host.setCity("Test");
+        host.setState("TT");
+        host.setPostalCode("11111");
+        host.setStandardRate(new BigDecimal("100.00"));
+        host.setWeekendRate(new BigDecimal("150.00"));
+        return host;
+    }
+}
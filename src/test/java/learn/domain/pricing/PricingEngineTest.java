@@ -0,0 +1,126 @@
+package learn.domain.pricing;
+
+import learn.models.Host;
+import learn.repository.DataAccessException;
+import learn.repository.RateRuleFileRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricingEngineTest {
+
+    //a Monday far enough out to sit past the compiled horizon
+    private final LocalDate monday = LocalDate.of(2031, 6, 2);
+
+    PricingEngine engine = new PricingEngine();
+    Host host = makeHost();
+
+    @Test
+    void shouldUseWeeklyRatesWithoutRuleSet() {
+        //Monday through Sunday: five standard nights, Friday and Saturday at the weekend rate, Sunday standard
+        BigDecimal actual = engine.quote(host, monday, monday.plusDays(6));
+        assertEquals(new BigDecimal("1500.00"), actual);
+    }
+
+    @Test
+    void shouldStartFromRulesFile(@TempDir Path directory) throws IOException, DataAccessException {
+        Path file = directory.resolve("rate-rules.csv");
+        Files.writeString(file, "host_id,rule,start_date,end_date,amount,weekend_amount,nights\n"
+                + host.getId() + ",minimum_stay,,,,,3\n");
+        PricingEngine loaded = new PricingEngine(new RateRuleFileRepository(file.toString()));
+
+        assertNotNull(loaded.validateStay(host, monday, monday.plusDays(1)));
+        assertNull(loaded.validateStay(host, monday, monday.plusDays(2)));
+    }
+
+    @Test
+    void shouldApplySeasonalRates() {
+        engine.setRuleSet(host.getId(), new RateRuleSet()
+                .addSeason(new SeasonalRate(monday.plusDays(1), monday.plusDays(2),
+                        new BigDecimal("300"), new BigDecimal("400"))));
+
+        //Monday 200, Tuesday and Wednesday 300, Thursday 200
+        BigDecimal actual = engine.quote(host, monday, monday.plusDays(3));
+        assertEquals(new BigDecimal("1000.00"), actual);
+    }
+
+    @Test
+    void shouldLetHolidaysOverrideSeasons() {
+        engine.setRuleSet(host.getId(), new RateRuleSet()
+                .addSeason(new SeasonalRate(monday, monday.plusDays(6), new BigDecimal("300"), new BigDecimal("400")))
+                .addHoliday(monday.plusDays(2), new BigDecimal("999.99")));
+
+        BigDecimal actual = engine.quote(host, monday.plusDays(1), monday.plusDays(3));
+        assertEquals(new BigDecimal("1599.99"), actual);
+    }
+
+    @Test
+    void shouldApplyLargestQualifyingDiscount() {
+        engine.setRuleSet(host.getId(), new RateRuleSet()
+                .addDiscount(new LengthOfStayDiscount(3, new BigDecimal("5")))
+                .addDiscount(new LengthOfStayDiscount(7, new BigDecimal("10"))));
+
+        assertEquals(new BigDecimal("1350.00"), engine.quote(host, monday, monday.plusDays(6)));
+        assertEquals(new BigDecimal("570.00"), engine.quote(host, monday, monday.plusDays(2)));
+        assertEquals(new BigDecimal("400.00"), engine.quote(host, monday, monday.plusDays(1)));
+    }
+
+    @Test
+    void shouldRejectStayShorterThanMinimum() {
+        engine.setRuleSet(host.getId(), new RateRuleSet().setMinimumStay(3));
+
+        assertNotNull(engine.validateStay(host, monday, monday.plusDays(1)));
+        assertNull(engine.validateStay(host, monday, monday.plusDays(2)));
+    }
+
+    @Test
+    void shouldMatchNightByNightTotalAcrossCompiledHorizon() {
+        LocalDate today = LocalDate.now();
+        engine.setRuleSet(host.getId(), new RateRuleSet()
+                .addSeason(new SeasonalRate(today.plusDays(10), today.plusDays(40),
+                        new BigDecimal("310.50"), new BigDecimal("420.25"))));
+
+        for (int offset = 0; offset < 800; offset += 37) {
+            LocalDate start = today.plusDays(offset);
+            LocalDate end = start.plusDays(45);
+
+            BigDecimal expected = new BigDecimal("0.00");
+            for (LocalDate d = start; !d.isAfter(end); d = d.plusDays(1)) {
+                boolean isWeekend = d.getDayOfWeek() == DayOfWeek.FRIDAY || d.getDayOfWeek() == DayOfWeek.SATURDAY;
+                boolean isSeason = !d.isBefore(today.plusDays(10)) && !d.isAfter(today.plusDays(40));
+                if (isSeason) {
+                    expected = expected.add(isWeekend ? new BigDecimal("420.25") : new BigDecimal("310.50"));
+                } else {
+                    expected = expected.add(isWeekend ? new BigDecimal("250") : new BigDecimal("200"));
+                }
+            }
+
+            assertEquals(expected, engine.quote(host, start, end));
+        }
+    }
+
+    @Test
+    void shouldRecompileWhenHostRatesChange() {
+        engine.setRuleSet(host.getId(), new RateRuleSet().addHoliday(monday, new BigDecimal("500")));
+        assertEquals(new BigDecimal("700.00"), engine.quote(host, monday, monday.plusDays(1)));
+
+        host.setStandardRate(new BigDecimal("100"));
+        assertEquals(new BigDecimal("600.00"), engine.quote(host, monday, monday.plusDays(1)));
+    }
+
+    private Host makeHost() {
+        Host host = new Host();
+        host.setId("2e72f86c-b8fe-4265-b4f1-304dea8762db");
+        host.setStandardRate(new BigDecimal("200"));
+        host.setWeekendRate(new BigDecimal("250"));
+        return host;
+    }
+}
@@ -0,0 +1,113 @@
+package learn.domain.reporting;
+
+import learn.domain.Result;
+import learn.models.Reservation;
+import learn.repository.DataAccessException;
+import learn.repository.HostRepositoryDouble;
+import learn.repository.ReservationRepositoryDouble;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportServiceTest {
+
+    ReservationRepositoryDouble reservationRepository = new ReservationRepositoryDouble();
+    ReportService service = new ReportService(reservationRepository, new HostRepositoryDouble(), 2);
+
+    @BeforeEach
+    void setUp() throws DataAccessException {
+        //the double's stays are two nights each, 2021-10-12 to 14 and 2021-10-19 to 21, plus one a year earlier
+        for (Reservation reservation : reservationRepository.findById(HostRepositoryDouble.HOST_ID)) {
+            reservation.setTotal(new BigDecimal("400.00"));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.close();
+    }
+
+    @Test
+    void shouldSumWholeStaysInsideWindow() throws DataAccessException {
+        Result<RevenueReport> result = service.buildReport(LocalDate.of(2021, 10, 1), LocalDate.of(2021, 11, 1));
+
+        assertTrue(result.isSuccess());
+        RevenueReport report = result.getPayload();
+        assertEquals(1, report.getHosts().size());
+
+        HostReport host = report.getHosts().get(0);
+        assertEquals(HostRepositoryDouble.HOST_ID, host.getHost().getId());
+        assertEquals(new BigDecimal("800.00"), host.getRevenue());
+        assertEquals(4, host.getNightsBooked());
+        assertEquals(4 / 31.0, host.getOccupancyRate(), 0.0001);
+        assertEquals(new BigDecimal("800.00"), report.getTotalRevenue());
+    }
+
+    @Test
+    void shouldCountOnlyNightsInsideWindow() throws DataAccessException {
+        Result<RevenueReport> result = service.buildReport(LocalDate.of(2021, 10, 13), LocalDate.of(2021, 10, 20));
+
+        HostReport host = result.getPayload().getHosts().get(0);
+        assertEquals(new BigDecimal("400.00"), host.getRevenue());
+        assertEquals(2, host.getNightsBooked());
+    }
+
+    @Test
+    void shouldNotCountStayEndingOnFirstDay() throws DataAccessException {
+        Result<RevenueReport> result = service.buildReport(LocalDate.of(2021, 10, 14), LocalDate.of(2021, 10, 19));
+
+        HostReport host = result.getPayload().getHosts().get(0);
+        assertEquals(0, host.getNightsBooked());
+        assertEquals(new BigDecimal("0.00"), host.getRevenue());
+    }
+
+    @Test
+    void shouldGroupByState() throws DataAccessException {
+        Result<RevenueReport> result = service.buildReport(LocalDate.of(2021, 10, 1), LocalDate.of(2021, 11, 1));
+
+        assertEquals(1, result.getPayload().getStates().size());
+        StateReport state = result.getPayload().getStates().get(0);
+        assertEquals("ID", state.getState());
+        assertEquals(1, state.getHostCount());
+        assertEquals(4, state.getNightsBooked());
+        assertEquals(new BigDecimal("800.00"), state.getRevenue());
+    }
+
+    @Test
+    void shouldSumStaysWithoutReadingReservations() throws DataAccessException {
+        ReservationRepositoryDouble staysOnly = new ReservationRepositoryDouble() {
+            @Override
+            public List<Reservation> findById(String id) {
+                throw new IllegalStateException("reports read stays, not reservations");
+            }
+
+            @Override
+            public void forEachStay(String hostId, StayConsumer consumer) {
+                consumer.accept(LocalDate.of(2021, 10, 12).toEpochDay(), LocalDate.of(2021, 10, 15).toEpochDay(),
+                        30001);
+            }
+        };
+        ReportService staysService = new ReportService(staysOnly, new HostRepositoryDouble(), 2);
+        try {
+            HostReport host = staysService.buildReport(LocalDate.of(2021, 10, 13), LocalDate.of(2021, 11, 1))
+                    .getPayload().getHosts().get(0);
+            assertEquals(2, host.getNightsBooked());
+            assertEquals(new BigDecimal("200.00"), host.getRevenue());
+        } finally {
+            staysService.close();
+        }
+    }
+
+    @Test
+    void shouldNotBuildReportForEmptyWindow() throws DataAccessException {
+        LocalDate day = LocalDate.of(2021, 10, 1);
+        assertFalse(service.buildReport(day, day).isSuccess());
+        assertFalse(service.buildReport(null, day).isSuccess());
+    }
+}
@@ -0,0 +1,138 @@
+package learn.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvReaderTest {
+
+    private CsvReader makeReader(String contents, int bufferSize) {
+        byte[] bytes = contents.getBytes(StandardCharsets.UTF_8);
+        return new CsvReader(Channels.newChannel(new ByteArrayInputStream(bytes)), bufferSize);
+    }
+
+    @Test
+    void shouldSplitRowsAcrossBufferRefills() throws IOException {
+        try (CsvReader reader = makeReader("id,name\r\n1,\u00c9milie Zo\u00eb\n\n22,a much longer name than the buffer", 8)) {
+            assertTrue(reader.nextRow());
+            assertEquals("name", reader.getString(1));
+
+            assertTrue(reader.nextRow());
+            assertEquals(1, reader.getInt(0));
+            assertEquals("\u00c9milie Zo\u00eb", reader.getString(1));
+
+            assertTrue(reader.nextRow());
+            assertTrue(reader.isBlank());
+
+            assertTrue(reader.nextRow());
+            assertEquals(2, reader.getFieldCount());
+            assertEquals(22, reader.getInt(0));
+            assertEquals("a much longer name than the buffer", reader.getString(1));
+
+            assertFalse(reader.nextRow());
+        }
+    }
+
+    @Test
+    void shouldKeepTrailingEmptyFields() throws IOException {
+        try (CsvReader reader = makeReader("a,,b,\n", 64)) {
+            assertTrue(reader.nextRow());
+            assertEquals(4, reader.getFieldCount());
+            assertEquals("", reader.getString(1));
+            assertEquals("", reader.getString(3));
+        }
+    }
+
+    @Test
+    void shouldDecodeDates() throws IOException {
+        try (CsvReader reader = makeReader("2024-02-29,2023-02-29,1969-12-31,not a date,2021-10-12", 64)) {
+            reader.nextRow();
+            assertEquals(LocalDate.of(2024, 2, 29), reader.getDate(0));
+            assertEquals(CsvReader.NO_DATE, reader.getEpochDay(1));
+            assertNull(reader.getDate(1));
+            assertEquals(-1, reader.getEpochDay(2));
+            assertNull(reader.getDate(3));
+            assertEquals(LocalDate.of(2021, 10, 12).toEpochDay(), reader.getEpochDay(4));
+        }
+    }
+
+    @Test
+    void shouldDecodeDecimalsKeepingTheirScale() throws IOException {
+        try (CsvReader reader = makeReader("340,368.75,-12.50,1E+3,99999999999999999999.5", 64)) {
+            reader.nextRow();
+            assertEquals(new BigDecimal("340"), reader.getDecimal(0));
+            assertEquals(new BigDecimal("368.75"), reader.getDecimal(1));
+            assertEquals(new BigDecimal("-12.50"), reader.getDecimal(2));
+            assertEquals(new BigDecimal("1E+3"), reader.getDecimal(3));
+            assertEquals(new BigDecimal("99999999999999999999.5"), reader.getDecimal(4));
+        }
+    }
+
+    @Test
+    void shouldRejectMalformedNumbers() throws IOException {
+        try (CsvReader reader = makeReader("12a,,abc", 64)) {
+            reader.nextRow();
+            assertThrows(NumberFormatException.class, () -> reader.getInt(0));
+            assertThrows(NumberFormatException.class, () -> reader.getInt(1));
+            assertThrows(NumberFormatException.class, () -> reader.getDecimal(2));
+        }
+    }
+
+    @Test
+    void shouldDecodeBooleans() throws IOException {
+        try (CsvReader reader = makeReader("true, false, true,TRUE,", 64)) {
+            reader.nextRow();
+            assertTrue(reader.getBoolean(0));
+            assertFalse(reader.getBoolean(1));
+            assertTrue(reader.getBoolean(2));
+            assertFalse(reader.getBoolean(3));
+            assertFalse(reader.getBoolean(4));
+        }
+    }
+
+    @Test
+    void shouldReadFromDirectBuffer() throws IOException {
+        byte[] bytes = "id,city\n7,Z\u00fcrich\n".getBytes(StandardCharsets.UTF_8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length);
+        direct.put(bytes).flip();
+
+        try (CsvReader reader = new CsvReader(direct)) {
+            reader.nextRow();
+            assertTrue(reader.nextRow());
+            assertEquals(7, reader.getInt(0));
+            assertEquals("Z\u00fcrich", reader.getString(1));
+            assertFalse(reader.nextRow());
+        }
+    }
+
+    @Test
+    void shouldReadMappedFiles(@TempDir Path directory) throws IOException {
+        Path file = directory.resolve("hosts.csv");
+        Files.write(file, "id,rate\nabc,295.50\n".getBytes(StandardCharsets.UTF_8));
+
+        try (CsvReader reader = CsvReader.mapped(file)) {
+            reader.nextRow();
+            assertTrue(reader.nextRow());
+            assertEquals("abc", reader.getString(0));
+            assertEquals(new BigDecimal("295.50"), reader.getDecimal(1));
+            assertFalse(reader.nextRow());
+        }
+
+        Path empty = directory.resolve("empty.csv");
+        Files.createFile(empty);
+        try (CsvReader reader = CsvReader.mapped(empty)) {
+            assertFalse(reader.nextRow());
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package learn.repository;
+
+import learn.models.Guest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvStoreTest {
+
+    private static final String HEADER = "id,last_name,email,deleted";
+
+    @TempDir
+    Path directory;
+
+    Path file;
+    //runs once, the next time a row is serialized
+    Runnable beforeNextRow;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        file = directory.resolve("rows.csv");
+        Files.writeString(file, HEADER + "\n1,One,one@test.com,false\n");
+    }
+
+    @Test
+    void shouldReloadWhenCsvChangesDuringCompaction() throws DataAccessException, IOException {
+        CsvStore<Guest> store = newStore();
+        store.add(makeRow("2", "two@test.com"));
+
+        //another process compacts and logs a new row while this one is writing its compacted copy
+        String otherLog = "2,3,Row,three@test.com,false\n";
+        beforeNextRow = () -> {
+            write(file, HEADER + "\n1,One,one@test.com,false\n2,Row,two@test.com,false\n");
+            write(logPath(), otherLog);
+        };
+        store.compact();
+
+        assertEquals(otherLog, Files.readString(logPath()));
+        assertNotNull(store.findByEmail("three@test.com"));
+        assertNotNull(store.findByEmail("two@test.com"));
+        assertEquals(3, store.findAll().size());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.noneMatch(f -> f.toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void shouldReloadWhenLogGrowsDuringCompaction() throws DataAccessException, IOException {
+        CsvStore<Guest> store = newStore();
+        CsvStore<Guest> other = newStore();
+        store.add(makeRow("2", "two@test.com"));
+
+        beforeNextRow = () -> {
+            try {
+                other.add(makeRow("3", "three@test.com"));
+            } catch (DataAccessException ex) {
+                throw new IllegalStateException(ex);
+            }
+        };
+        store.compact();
+
+        assertNotNull(store.findByEmail("three@test.com"));
+        assertNotNull(store.findByEmail("two@test.com"));
+        assertEquals(3, newStore().findAll().size());
+    }
+
+    @Test
+    void shouldFoldLogIntoCsv() throws DataAccessException {
+        CsvStore<Guest> store = newStore();
+        store.add(makeRow("2", "two@test.com"));
+        assertTrue(store.deleteByEmail("one@test.com"));
+
+        store.compact();
+
+        assertFalse(Files.exists(logPath()));
+        CsvStore<Guest> reopened = newStore();
+        assertNull(reopened.findByEmail("one@test.com"));
+        assertTrue(reopened.findById("1").isDeleted());
+        assertEquals("2", reopened.findByEmail("TWO@test.com").getId());
+    }
+
+    private CsvStore<Guest> newStore() {
+        return new CsvStore<>(file.toString(), HEADER, this::read, this::serialize, rows -> {
+        }, this::copy, true);
+    }
+
+    private Path logPath() {
+        return directory.resolve("rows.csv.log");
+    }
+
+    private Guest read(CsvReader reader, int offset) {
+        Guest guest = makeRow(reader.getString(offset), reader.getString(offset + 2));
+        guest.setLastName(reader.getString(offset + 1));
+        guest.setDeleted(reader.getBoolean(offset + 3));
+        return guest;
+    }
+
+    private String serialize(Guest guest) {
+        Runnable hook = beforeNextRow;
+        beforeNextRow = null;
+        if (hook != null) {
+            hook.run();
+        }
+        return guest.getId() + "," + guest.getLastName() + "," + guest.getEmail() + "," + guest.isDeleted();
+    }
+
+    private Guest copy(Guest guest) {
+        Guest copy = makeRow(guest.getId(), guest.getEmail());
+        copy.setLastName(guest.getLastName());
+        copy.setDeleted(guest.isDeleted());
+        return copy;
+    }
+
+    private Guest makeRow(String id, String email) {
+        Guest guest = new Guest();
+        guest.setId(id);
+        guest.setLastName("Row");
+        guest.setEmail(email);
+        return guest;
+    }
+
+    private void write(Path path, String content) {
+        try {
+            Files.writeString(path, content);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package learn.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileLocksTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldSerializeReadModifyWriteAcrossThreads() throws Exception {
+        Path counter = directory.resolve("counter.txt");
+        Files.write(counter, "0".getBytes(StandardCharsets.UTF_8));
+
+        Thread[] writers = new Thread[8];
+        for (int t = 0; t < writers.length; t++) {
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    try {
+                        FileLocks.writeLocked(counter, () -> increment(counter));
+                    } catch (DataAccessException ex) {
+                        fail(ex);
+                    }
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertEquals("400", new String(Files.readAllBytes(counter), StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void shouldLetReadersOfOneFileInAtOnce() throws Exception {
+        Path file = directory.resolve("hosts.csv");
+        CountDownLatch bothIn = new CountDownLatch(2);
+
+        Thread[] readers = new Thread[2];
+        boolean[] met = new boolean[2];
+        for (int t = 0; t < readers.length; t++) {
+            int reader = t;
+            readers[t] = new Thread(() -> {
+                try {
+                    met[reader] = FileLocks.readLocked(file, () -> {
+                        bothIn.countDown();
+                        try {
+                            return bothIn.await(5, TimeUnit.SECONDS);
+                        } catch (InterruptedException ex) {
+                            return false;
+                        }
+                    });
+                } catch (DataAccessException ex) {
+                    fail(ex);
+                }
+            });
+            readers[t].start();
+        }
+        for (Thread reader : readers) {
+            reader.join();
+        }
+
+        assertTrue(met[0] && met[1]);
+        //the shared lock was let go, so a writer gets in
+        assertEquals("written", FileLocks.writeLocked(file, () -> "written"));
+    }
+
+    @Test
+    void shouldAllowNestedLocksOnSameFile() throws DataAccessException {
+        Path file = directory.resolve("hosts.csv");
+
+        String result = FileLocks.writeLocked(file, () ->
+                FileLocks.readLocked(file, () -> FileLocks.writeLocked(file, () -> "nested")));
+
+        assertEquals("nested", result);
+        assertTrue(Files.exists(FileLocks.getLockPath(file)));
+    }
+
+    @Test
+    void shouldNotUpgradeReadLock() {
+        Path file = directory.resolve("hosts.csv");
+
+        assertThrows(DataAccessException.class, () ->
+                FileLocks.readLocked(file, () -> FileLocks.writeLocked(file, () -> null)));
+    }
+
+    private Void increment(Path counter) throws DataAccessException {
+        try {
+            int value = Integer.parseInt(new String(Files.readAllBytes(counter), StandardCharsets.UTF_8));
+            Files.write(counter, String.valueOf(value + 1).getBytes(StandardCharsets.UTF_8));
+        } catch (IOException ex) {
+            throw new DataAccessException(ex.getMessage());
+        }
+        return null;
+    }
+}
@@ -28,6 +28,8 @@ class GuestFileRepositoryTest {
         Path testPath = Paths.get(TEST_FILE);
 
         Files.copy(seedPath, testPath, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(Paths.get(repository.getSequencePath()));
+        Files.deleteIfExists(Paths.get(TEST_FILE + ".log"));
     }
 
     @Test
@@ -64,6 +66,110 @@ class GuestFileRepositoryTest {
         assertNotNull(actual);
     }
 
+    @Test
+    void shouldKeepBothNameFieldsThroughAddAndRead() throws DataAccessException {
+        Guest guest = new Guest();
+        guest.setFirstName("Ann");
+        guest.setLastName("Lee");
+        guest.setEmail("ann.lee@test.com");
+        guest.setPhone("(555) 1234567");
+        guest.setState("MN");
+        repository.add(guest);
+
+        Guest actual = new GuestFileRepository(TEST_FILE, guestToJSONRepository)
+                .findByEmail("ann.lee@test.com");
+        assertEquals("Ann", actual.getFirstName());
+        assertEquals("Lee", actual.getLastName());
+        assertEquals("Ann Lee", actual.getFullName());
+    }
+
+    @Test
+    void shouldFindGuestByIdIncludingDeleted() throws DataAccessException {
+        assertEquals("Kuhl", repository.findById("663").getLastName());
+        assertNull(repository.findById("1"));
+        assertNull(repository.findById(null));
+
+        assertTrue(repository.deleteByEmail("wkuhlie@patch.com"));
+        assertTrue(repository.findById("663").isDeleted());
+    }
+
+    @Test
+    void shouldReturnGuestIgnoringEmailCase() throws DataAccessException {
+        Guest guest = repository.findByEmail("NDetoile3R@Yahoo.co.jp");
+
+        assertNotNull(guest);
+        assertEquals("136", guest.getId());
+    }
+
+    @Test
+    void shouldFindGuestReAddedAfterDelete() throws DataAccessException {
+        assertTrue(repository.deleteByEmail("ainmankh@example.com"));
+        assertNull(repository.findByEmail("ainmankh@example.com"));
+
+        Guest guest = new Guest();
+        guest.setFirstName("Annamarie");
+        guest.setLastName("Inman");
+        guest.setEmail("ainmankh@example.com");
+        guest.setPhone("(314) 6947914");
+        guest.setState("MO");
+        Guest added = repository.add(guest);
+
+        Guest actual = repository.findByEmail("ainmankh@example.com");
+        assertNotNull(actual);
+        assertEquals(added.getId(), actual.getId());
+
+        assertTrue(repository.deleteByEmail("AINMANKH@example.com"));
+        assertNull(repository.findByEmail("ainmankh@example.com"));
+    }
+
+    @Test
+    void shouldAssignIdsAfterHighestExistingWithoutReuse() throws DataAccessException {
+        Guest first = repository.add(makeGuest("first@example.com"));
+        assertEquals("739", first.getId());
+
+        assertTrue(repository.deleteByEmail("first@example.com"));
+        GuestFileRepository restarted = new GuestFileRepository(TEST_FILE, guestToJSONRepository);
+        Guest second = restarted.add(makeGuest("second@example.com"));
+
+        assertTrue(Long.parseLong(second.getId()) > 739);
+        assertEquals(second.getId(), restarted.findByEmail("second@example.com").getId());
+    }
+
+    @Test
+    void shouldReplayLoggedWritesAndCompact() throws DataAccessException {
+        GuestFileRepository logged = new GuestFileRepository(TEST_FILE, guestToJSONRepository, true);
+        Guest added = logged.add(makeGuest("logged@example.com"));
+        assertTrue(logged.deleteByEmail("wkuhlie@patch.com"));
+
+        GuestFileRepository reopened = new GuestFileRepository(TEST_FILE, guestToJSONRepository, true);
+        assertEquals(added.getId(), reopened.findByEmail("logged@example.com").getId());
+        assertNull(reopened.findByEmail("wkuhlie@patch.com"));
+
+        reopened.close();
+        assertFalse(Files.exists(Paths.get(TEST_FILE + ".log")));
+        assertTrue(repository.findById("663").isDeleted());
+        assertNotNull(repository.findByEmail("logged@example.com"));
+    }
+
+    @Test
+    void shouldNotChangeCacheWhenReturnedGuestIsEdited() throws DataAccessException {
+        repository.findById("663").setEmail("edited@example.com");
+        repository.findAll().forEach(g -> g.setDeleted(true));
+
+        assertEquals("wkuhlie@patch.com", repository.findById("663").getEmail());
+        assertNotNull(repository.findByEmail("wkuhlie@patch.com"));
+    }
+
+    private Guest makeGuest(String email) {
+        Guest guest = new Guest();
+        guest.setFirstName("Test");
+        guest.setLastName("Guest");
+        guest.setEmail(email);
+        guest.setPhone("(555) 5555555");
+        guest.setState("MN");
+        return guest;
+    }
+
     @Test
     void shouldNotAddNullUser() throws DataAccessException {
         Guest actual = repository.add(null);
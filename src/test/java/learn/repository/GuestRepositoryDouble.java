@@ -26,6 +26,13 @@ public class GuestRepositoryDouble implements GuestRepository {
                 .findFirst().orElse(null);
     }
 
+    @Override
+    public Guest findById(String id) throws DataAccessException {
+        return findAll().stream()
+                .filter(i -> i.getId().equalsIgnoreCase(id))
+                .findFirst().orElse(null);
+    }
+
     @Override
     public List<Guest> findAll() throws DataAccessException {
         return guests;
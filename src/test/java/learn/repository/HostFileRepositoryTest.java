@@ -12,6 +12,7 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -19,6 +20,7 @@ class HostFileRepositoryTest {
 
     private static final String SEED_FILE = "./data/host-seed-file.csv";
     private static final String TEST_FILE = "./data/host-test-file.csv";
+    private static final String LOG_FILE = TEST_FILE + ".log";
 
     HostToJSONRepository hostToJSONRepository = new HostToJSONRepositoryDouble();
     HostRepository repository = new HostFileRepository(TEST_FILE, hostToJSONRepository);
@@ -29,6 +31,7 @@ class HostFileRepositoryTest {
         Path testPath = Paths.get(TEST_FILE);
 
         Files.copy(seedPath, testPath, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(Paths.get(LOG_FILE));
     }
 
     @Test
@@ -91,12 +94,127 @@ class HostFileRepositoryTest {
         assertTrue(repository.deleteByEmail("mfader2@amazon.co.jp"));
     }
 
+    @Test
+    void shouldChangeVersionOnlyWhenHostsChange() throws DataAccessException {
+        long before = repository.getVersion();
+        assertEquals(before, repository.getVersion());
+
+        assertTrue(repository.deleteByEmail("mfader2@amazon.co.jp"));
+        assertNotEquals(before, repository.getVersion());
+    }
+
     @Test
     void shouldNotDeleteIfInvalid() throws DataAccessException {
         assertFalse(repository.deleteByEmail("test"));
         assertFalse(repository.deleteByEmail(null));
     }
 
+    @Test
+    void shouldFindHostById() throws DataAccessException {
+        Host host = repository.findById("3EDDA6BC-ab95-49a8-8962-d50b53f84b15");
+
+        assertNotNull(host);
+        assertEquals("Yearnes", host.getLastName());
+        assertNull(repository.findById("Test"));
+    }
+
+    @Test
+    void shouldFindAddedHostById() throws DataAccessException {
+        Host added = repository.add(makeHost());
+        assertEquals("Test@Test.com", repository.findById(added.getId()).getEmail());
+    }
+
+    @Test
+    void shouldReturnHostIgnoringEmailCase() throws DataAccessException {
+        Host host = repository.findByEmail("KDECLERKDC@sitemeter.com");
+
+        assertNotNull(host);
+        assertEquals("de Clerk", host.getLastName());
+    }
+
+    @Test
+    void shouldKeepIdOnUpdate() throws DataAccessException {
+        Host host = repository.findByEmail("kdeclerkdc@sitemeter.com");
+        String id = host.getId();
+        host.setLastName("Test");
+
+        assertTrue(repository.update(host));
+        assertEquals(id, repository.findByEmail("kdeclerkdc@sitemeter.com").getId());
+    }
+
+    @Test
+    void shouldNotChangeCacheWhenReturnedHostIsEdited() throws DataAccessException {
+        repository.findByEmail("kdeclerkdc@sitemeter.com").setLastName("Edited");
+        repository.findAll().forEach(h -> h.setDeleted(true));
+        Host added = repository.add(makeHost());
+        added.setCity("Edited");
+
+        assertEquals("de Clerk", repository.findByEmail("kdeclerkdc@sitemeter.com").getLastName());
+        assertEquals(6, repository.findAllNotDeleted().size());
+        assertEquals("Testville", repository.findById(added.getId()).getCity());
+    }
+
+    @Test
+    void shouldServeWritesFromCache() throws DataAccessException {
+        User host = makeHost();
+        repository.add(host);
+
+        assertNotNull(repository.findByEmail("Test@Test.com"));
+        assertEquals(6, repository.findAll().size());
+    }
+
+    @Test
+    void shouldReloadIfFileChangedByAnotherProcess() throws DataAccessException, IOException {
+        repository.add(makeHost());
+        assertNotNull(repository.findByEmail("Test@Test.com"));
+
+        Files.copy(Paths.get(SEED_FILE), Paths.get(TEST_FILE), StandardCopyOption.REPLACE_EXISTING);
+
+        assertNull(repository.findByEmail("Test@Test.com"));
+        assertEquals(5, repository.findAll().size());
+    }
+
+    @Test
+    void shouldLogWritesWithoutRewritingCsv() throws DataAccessException, IOException {
+        byte[] before = Files.readAllBytes(Paths.get(TEST_FILE));
+        HostFileRepository logged = new HostFileRepository(TEST_FILE, hostToJSONRepository, true);
+
+        logged.add(makeHost());
+        assertTrue(logged.deleteByEmail("kdeclerkdc@sitemeter.com"));
+
+        assertArrayEquals(before, Files.readAllBytes(Paths.get(TEST_FILE)));
+        assertTrue(Files.exists(Paths.get(LOG_FILE)));
+
+        HostFileRepository reopened = new HostFileRepository(TEST_FILE, hostToJSONRepository, true);
+        assertNotNull(reopened.findByEmail("test@test.com"));
+        assertNull(reopened.findByEmail("kdeclerkdc@sitemeter.com"));
+        assertEquals(6, reopened.findAll().size());
+    }
+
+    @Test
+    void shouldCompactLogIntoCsv() throws DataAccessException {
+        HostFileRepository logged = new HostFileRepository(TEST_FILE, hostToJSONRepository, true);
+        Host added = logged.add(makeHost());
+
+        logged.compact();
+
+        assertFalse(Files.exists(Paths.get(LOG_FILE)));
+        assertEquals(added.getId(), repository.findByEmail("test@test.com").getId());
+        assertEquals(6, logged.findAll().size());
+    }
+
+    @Test
+    void shouldDropTornLogRecord() throws DataAccessException, IOException {
+        HostFileRepository logged = new HostFileRepository(TEST_FILE, hostToJSONRepository, true);
+        logged.add(makeHost());
+        long complete = Files.size(Paths.get(LOG_FILE));
+        Files.write(Paths.get(LOG_FILE), "6,half-written".getBytes(), StandardOpenOption.APPEND);
+
+        HostFileRepository reopened = new HostFileRepository(TEST_FILE, hostToJSONRepository, true);
+        assertEquals(6, reopened.findAll().size());
+        assertEquals(complete, Files.size(Paths.get(LOG_FILE)));
+    }
+
     private Host makeHost() {
         Host host = new Host();
 
@@ -28,6 +28,13 @@ public class HostRepositoryDouble implements HostRepository {
                 .findFirst().orElse(null);
     }
 
+    @Override
+    public Host findById(String id) throws DataAccessException {
+        return findAll().stream()
+                .filter(i -> i.getId().equalsIgnoreCase(id))
+                .findFirst().orElse(null);
+    }
+
     @Override
     public List<Host> findAll() throws DataAccessException {
         return hosts;
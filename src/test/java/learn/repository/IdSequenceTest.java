@@ -0,0 +1,79 @@
+package learn.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IdSequenceTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldSeedFromHighestExistingIdOnce() throws DataAccessException {
+        AtomicInteger seedCalls = new AtomicInteger();
+        IdSequence sequence = new IdSequence(directory.resolve("host.seq"), 4, () -> {
+            seedCalls.incrementAndGet();
+            return 41;
+        });
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(42 + i, sequence.nextId());
+        }
+        assertEquals(1, seedCalls.get());
+    }
+
+    @Test
+    void shouldStartAtOneWithoutExistingIds() throws DataAccessException {
+        IdSequence sequence = new IdSequence(directory.resolve("host.seq"), 4, () -> 0);
+        assertEquals(1, sequence.nextId());
+    }
+
+    @Test
+    void shouldNotReuseIdsAfterRestart() throws DataAccessException {
+        IdSequence sequence = new IdSequence(directory.resolve("host.seq"), 4, () -> 0);
+        long last = 0;
+        for (int i = 0; i < 3; i++) {
+            last = sequence.nextId();
+        }
+
+        IdSequence restarted = new IdSequence(directory.resolve("host.seq"), 4, () -> {
+            throw new DataAccessException("should not re-read the data file");
+        });
+        assertTrue(restarted.nextId() > last);
+    }
+
+    @Test
+    void shouldNeverCollideAcrossSequencesSharingASidecar() throws InterruptedException {
+        Path path = directory.resolve("host.seq");
+        Set<Long> ids = new HashSet<>();
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            IdSequence sequence = new IdSequence(path, 3, () -> 0);
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 50; i++) {
+                    try {
+                        long id = sequence.nextId();
+                        synchronized (ids) {
+                            assertTrue(ids.add(id));
+                        }
+                    } catch (DataAccessException ex) {
+                        fail(ex);
+                    }
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        assertEquals(200, ids.size());
+    }
+}
@@ -0,0 +1,127 @@
+package learn.repository;
+
+import learn.repository.convertToJSON.JSONExportQueue;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JSONExportQueueTest {
+
+    //long enough that nothing runs on the timer during a test
+    JSONExportQueue queue = new JSONExportQueue(60_000);
+
+    @Test
+    void shouldCoalesceBurstIntoOneExport() throws DataAccessException {
+        List<String> exported = new ArrayList<>();
+        queue.submit("hosts", () -> exported.add("first"));
+        queue.submit("hosts", () -> exported.add("second"));
+        queue.submit("hosts", () -> exported.add("third"));
+
+        assertEquals(0, exported.size());
+        queue.flush();
+
+        assertEquals(List.of("third"), exported);
+    }
+
+    @Test
+    void shouldKeepDifferentKeysSeparate() throws DataAccessException {
+        List<String> exported = new ArrayList<>();
+        queue.submit("hosts", () -> exported.add("hosts"));
+        queue.submit("guests", () -> exported.add("guests"));
+        queue.flush();
+
+        assertEquals(List.of("hosts", "guests"), exported);
+    }
+
+    @Test
+    void shouldRunPendingExportsOnClose() throws DataAccessException {
+        List<String> exported = new ArrayList<>();
+        queue.submit("hosts", () -> exported.add("hosts"));
+        queue.close();
+
+        assertEquals(List.of("hosts"), exported);
+
+        queue.submit("hosts", () -> exported.add("after close"));
+        assertEquals(List.of("hosts", "after close"), exported);
+    }
+
+    @Test
+    void shouldReportFailedExportOnFlush() throws DataAccessException {
+        queue.submit("hosts", () -> {
+            throw new DataAccessException("disk full");
+        });
+
+        DataAccessException ex = assertThrows(DataAccessException.class, () -> queue.flush());
+        assertEquals("disk full", ex.getMessage());
+    }
+
+    @Test
+    void shouldKeepDrainingPastUncheckedFailure() throws DataAccessException {
+        List<String> exported = new ArrayList<>();
+        queue.submit("hosts", () -> {
+            throw new IllegalStateException("closed loader");
+        });
+        queue.submit("guests", () -> exported.add("guests"));
+
+        DataAccessException ex = assertThrows(DataAccessException.class, () -> queue.flush());
+        assertTrue(ex.getMessage().contains("closed loader"));
+        assertEquals(List.of("guests"), exported);
+    }
+
+    @Test
+    void shouldReportTimerFailureWhenItHappens() throws DataAccessException, InterruptedException {
+        List<String> failures = new ArrayList<>();
+        JSONExportQueue fastQueue = new JSONExportQueue(10, (key, ex) -> {
+            synchronized (failures) {
+                failures.add(key + ": " + ex.getMessage());
+            }
+        });
+        fastQueue.submit("hosts", () -> {
+            throw new DataAccessException("disk full");
+        });
+
+        for (int i = 0; i < 100; i++) {
+            synchronized (failures) {
+                if (!failures.isEmpty()) {
+                    break;
+                }
+            }
+            Thread.sleep(20);
+        }
+
+        synchronized (failures) {
+            assertEquals(List.of("hosts: disk full"), failures);
+        }
+        //still handed to the next flush
+        DataAccessException ex = assertThrows(DataAccessException.class, fastQueue::close);
+        assertEquals("disk full", ex.getMessage());
+    }
+
+    @Test
+    void shouldExportOnTimer() throws DataAccessException, InterruptedException {
+        JSONExportQueue fastQueue = new JSONExportQueue(10);
+        List<String> exported = new ArrayList<>();
+        fastQueue.submit("hosts", () -> {
+            synchronized (exported) {
+                exported.add("hosts");
+            }
+        });
+
+        for (int i = 0; i < 100; i++) {
+            synchronized (exported) {
+                if (!exported.isEmpty()) {
+                    break;
+                }
+            }
+            Thread.sleep(20);
+        }
+
+        synchronized (exported) {
+            assertEquals(List.of("hosts"), exported);
+        }
+        fastQueue.close();
+    }
+}
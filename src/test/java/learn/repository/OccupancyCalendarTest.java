@@ -0,0 +1,74 @@
+package learn.repository;
+
+import learn.models.Reservation;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OccupancyCalendarTest {
+
+    private final LocalDate origin = LocalDate.of(2030, 1, 1);
+
+    OccupancyCalendar calendar = new OccupancyCalendar(origin, 200);
+
+    @Test
+    void shouldFindBookedNightsAcrossWords() {
+        calendar.book(makeReservation(origin.plusDays(60), origin.plusDays(70)));
+
+        assertFalse(calendar.isFree(origin.plusDays(69), origin.plusDays(72)));
+        assertFalse(calendar.isFree(origin.plusDays(50), origin.plusDays(61)));
+        assertTrue(calendar.isFree(origin.plusDays(70), origin.plusDays(80)));
+        assertTrue(calendar.isFree(origin, origin.plusDays(60)));
+        assertEquals(10, calendar.countBooked(origin, origin.plusDays(200)));
+        assertEquals(4, calendar.countBooked(origin.plusDays(66), origin.plusDays(128)));
+    }
+
+    @Test
+    void shouldHandleWholeWords() {
+        calendar.book(makeReservation(origin.plusDays(64), origin.plusDays(128)));
+
+        assertEquals(64, calendar.countBooked(origin, origin.plusDays(200)));
+        assertTrue(calendar.isFree(origin, origin.plusDays(64)));
+        assertTrue(calendar.isFree(origin.plusDays(128), origin.plusDays(192)));
+    }
+
+    @Test
+    void shouldOnlyCoverTheHorizon() {
+        calendar.book(makeReservation(origin.minusDays(5), origin.plusDays(2)));
+        calendar.book(makeReservation(origin.plusDays(198), origin.plusDays(210)));
+
+        assertEquals(4, calendar.countBooked(origin.minusDays(10), origin.plusDays(300)));
+        assertTrue(calendar.covers(origin, origin.plusDays(200)));
+        assertFalse(calendar.covers(origin.minusDays(1), origin.plusDays(3)));
+        assertFalse(calendar.covers(origin.plusDays(190), origin.plusDays(201)));
+    }
+
+    @Test
+    void shouldFindNextFreeStretch() {
+        calendar.book(makeReservation(origin.plusDays(2), origin.plusDays(5)));
+        calendar.book(makeReservation(origin.plusDays(7), origin.plusDays(100)));
+
+        assertEquals(origin, calendar.nextFree(origin, 2));
+        assertEquals(origin.plusDays(5), calendar.nextFree(origin.plusDays(1), 2));
+        assertEquals(origin.plusDays(100), calendar.nextFree(origin.plusDays(1), 3));
+        assertNull(calendar.nextFree(origin, 101));
+    }
+
+    @Test
+    void shouldStartAtTodayWhenBuiltFromReservations() {
+        LocalDate today = LocalDate.now();
+        OccupancyCalendar current = new OccupancyCalendar(List.of(
+                makeReservation(today.plusDays(3), today.plusDays(5)), new Reservation()));
+
+        assertTrue(current.isCurrent());
+        assertEquals(today, current.getOrigin());
+        assertEquals(2, current.countBooked(today, today.plusDays(OccupancyCalendar.HORIZON_DAYS)));
+    }
+
+    private Reservation makeReservation(LocalDate startDate, LocalDate endDate) {
+        return new Reservation(null, null, startDate, endDate);
+    }
+}
@@ -0,0 +1,65 @@
+package learn.repository;
+
+import learn.domain.pricing.RateRuleSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateRuleFileRepositoryTest {
+
+    private static final String HEADER = "host_id,rule,start_date,end_date,amount,weekend_amount,nights\n";
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadEveryKindOfRule() throws IOException, DataAccessException {
+        Map<String, RateRuleSet> all = read(HEADER
+                + "host-1,season,2031-06-01,2031-08-31,300,400,\n"
+                + "host-1,holiday,2031-07-04,,500,,\n"
+                + "\n"
+                + "host-1,discount,,,10,,7\n"
+                + "host-1,minimum_stay,,,,,2\n"
+                + "host-2,minimum_stay,,,,,3\n");
+
+        assertEquals(2, all.size());
+        RateRuleSet ruleSet = all.get("host-1");
+        assertEquals(LocalDate.of(2031, 8, 31), ruleSet.getSeasons().get(0).getEndDate());
+        assertEquals(new BigDecimal("400"), ruleSet.getSeasons().get(0).getWeekendRate());
+        assertEquals(new BigDecimal("500"), ruleSet.getHolidays().get(LocalDate.of(2031, 7, 4)));
+        assertEquals(7, ruleSet.getDiscounts().get(0).getMinimumNights());
+        assertEquals(new BigDecimal("10"), ruleSet.getDiscounts().get(0).getPercentOff());
+        assertEquals(2, ruleSet.getMinimumStay());
+        assertEquals(3, all.get("host-2").getMinimumStay());
+    }
+
+    @Test
+    void shouldReadNoRulesWithoutFile() throws DataAccessException {
+        assertTrue(new RateRuleFileRepository(directory.resolve("missing.csv").toString()).findAll().isEmpty());
+    }
+
+    @Test
+    void shouldNotReadInvalidRule() {
+        DataAccessException unknown = assertThrows(DataAccessException.class,
+                () -> read(HEADER + "host-1,surcharge,,,10,,\n"));
+        assertTrue(unknown.getMessage().contains("line 2"));
+
+        assertThrows(DataAccessException.class, () -> read(HEADER + "host-1,holiday,07/04/2031,,500,,\n"));
+        assertThrows(DataAccessException.class, () -> read(HEADER + "host-1,discount,,,ten,,7\n"));
+        assertThrows(DataAccessException.class, () -> read(HEADER + "host-1,minimum_stay,2\n"));
+    }
+
+    private Map<String, RateRuleSet> read(String contents) throws IOException, DataAccessException {
+        Path file = directory.resolve("rate-rules.csv");
+        Files.writeString(file, contents);
+        return new RateRuleFileRepository(file.toString()).findAll();
+    }
+}
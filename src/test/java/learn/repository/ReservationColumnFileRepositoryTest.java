@@ -0,0 +1,176 @@
+package learn.repository;
+
+import learn.models.Guest;
+import learn.models.Host;
+import learn.models.Reservation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationColumnFileRepositoryTest {
+
+    private static final String SEED_FILE = "./data/reservations-seed-file.csv";
+    private static final String HOST_ID = "2e72f86c-b8fe-4265-b4f1-304dea8762db";
+
+    @TempDir
+    Path directory;
+
+    ReservationColumnFileRepository repository;
+
+    @BeforeEach
+    void setUp() throws IOException, DataAccessException {
+        Path csvDirectory = Files.createDirectories(directory.resolve("csv"));
+        Files.copy(Paths.get(SEED_FILE), csvDirectory.resolve(HOST_ID + ".csv"));
+
+        repository = new ReservationColumnFileRepository(directory.resolve("bin").toString());
+        assertEquals(3, repository.importCsv(csvDirectory.toString()));
+    }
+
+    @Test
+    void shouldImportSameReservationsAsCsvRepository() throws DataAccessException {
+        List<Reservation> expected = new ReservationFileRepository(directory.resolve("csv").toString(),
+                new ReservationToJSONRepositoryDouble()).findById(HOST_ID);
+        List<Reservation> actual = repository.findById(HOST_ID);
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getReservationId(), actual.get(i).getReservationId());
+            assertEquals(expected.get(i).getStartDate(), actual.get(i).getStartDate());
+            assertEquals(expected.get(i).getEndDate(), actual.get(i).getEndDate());
+            assertEquals(expected.get(i).getGuest().getId(), actual.get(i).getGuest().getId());
+            assertEquals(0, expected.get(i).getTotal().compareTo(actual.get(i).getTotal()));
+            assertEquals(HOST_ID, actual.get(i).getHost().getId());
+        }
+    }
+
+    @Test
+    void shouldPersistAddUpdateAndDelete() throws DataAccessException {
+        Reservation added = repository.add(makeReservation(LocalDate.of(2030, 1, 1), 3, "663", "612.50"));
+        assertEquals(4, added.getReservationId());
+
+        added.setTotal(new BigDecimal("700"));
+        assertTrue(repository.update(added));
+        assertTrue(repository.deleteById(HOST_ID, 1));
+        assertFalse(repository.deleteById(HOST_ID, 1));
+
+        List<Reservation> reloaded = new ReservationColumnFileRepository(directory.resolve("bin").toString())
+                .findById(HOST_ID);
+        assertEquals(3, reloaded.size());
+        Reservation last = reloaded.get(2);
+        assertEquals(4, last.getReservationId());
+        assertEquals(LocalDate.of(2030, 1, 4), last.getEndDate());
+        assertEquals(new BigDecimal("700.00"), last.getTotal());
+    }
+
+    @Test
+    void shouldNotReuseImportedIdsAfterImport() throws IOException, DataAccessException {
+        assertEquals(4, repository.add(makeReservation(LocalDate.of(2030, 1, 1), 3, "663", "612.50"))
+                .getReservationId());
+
+        //the csv carries an id past the block and the high-water mark this repository already reserved
+        Path csvFile = directory.resolve("csv").resolve(HOST_ID + ".csv");
+        Files.writeString(csvFile, Files.readString(csvFile) + "\n100,2031-01-01,2031-01-03,663,400");
+        assertEquals(4, repository.importCsv(directory.resolve("csv").toString()));
+
+        assertEquals(101, repository.add(makeReservation(LocalDate.of(2032, 1, 1), 3, "663", "612.50"))
+                .getReservationId());
+        //another process reserves its block past the imported ids too
+        assertTrue(new ReservationColumnFileRepository(directory.resolve("bin").toString())
+                .add(makeReservation(LocalDate.of(2033, 1, 1), 3, "663", "612.50")).getReservationId() > 101);
+    }
+
+    @Test
+    void shouldNotAddNonNumericGuestOrFractionalCents() {
+        assertThrows(DataAccessException.class,
+                () -> repository.add(makeReservation(LocalDate.of(2030, 1, 1), 3, "abc", "10")));
+        assertThrows(DataAccessException.class,
+                () -> repository.add(makeReservation(LocalDate.of(2030, 1, 1), 3, "663", "10.005")));
+    }
+
+    @Test
+    void shouldScanColumnsForOverlapsTotalsAndGuests() throws DataAccessException {
+        repository.add(makeReservation(LocalDate.of(2030, 1, 1), 3, "663", "600"));
+        repository.add(makeReservation(LocalDate.of(2030, 2, 1), 2, "136", "400.25"));
+
+        assertTrue(repository.overlaps(HOST_ID, LocalDate.of(2030, 1, 3), LocalDate.of(2030, 1, 5), 0));
+        assertFalse(repository.overlaps(HOST_ID, LocalDate.of(2030, 1, 4), LocalDate.of(2030, 1, 6), 0));
+        assertFalse(repository.overlaps(HOST_ID, LocalDate.of(2030, 1, 3), LocalDate.of(2030, 1, 5), 4));
+
+        assertEquals(new BigDecimal("1000.25"),
+                repository.getTotal(HOST_ID, LocalDate.of(2030, 1, 1), LocalDate.of(2031, 1, 1)));
+        assertEquals(2, repository.findByGuestId(HOST_ID, 663).size());
+    }
+
+    @Test
+    void shouldExportToCsv() throws DataAccessException {
+        Path exported = directory.resolve("exported");
+        assertEquals(3, repository.exportCsv(exported.toString()));
+
+        List<Reservation> roundTrip = new ReservationFileRepository(exported.toString(),
+                new ReservationToJSONRepositoryDouble()).findById(HOST_ID);
+        assertEquals(3, roundTrip.size());
+        assertEquals(new BigDecimal("400.00"), roundTrip.get(0).getTotal());
+    }
+
+    @Test
+    void shouldKeepCalendarAndVersionInStepWithWrites() throws DataAccessException, IOException {
+        LocalDate start = LocalDate.now().plusDays(10);
+        long version = repository.getVersion(HOST_ID);
+        assertTrue(repository.getCalendar(HOST_ID).isFree(start, start.plusDays(3)));
+
+        repository.add(makeReservation(start, 3, "663", "600"));
+        assertNotEquals(version, repository.getVersion(HOST_ID));
+        assertFalse(repository.getCalendar(HOST_ID).isFree(start.plusDays(1), start.plusDays(2)));
+        assertTrue(repository.getCalendar(HOST_ID).isFree(start.plusDays(3), start.plusDays(5)));
+
+        //another process's write that keeps the mtime still changes the size
+        version = repository.getVersion(HOST_ID);
+        Path file = Paths.get(repository.getFilePath(HOST_ID));
+        FileTime modifiedTime = Files.getLastModifiedTime(file);
+        assertTrue(new ReservationColumnFileRepository(directory.resolve("bin").toString()).deleteById(HOST_ID, 4));
+        Files.setLastModifiedTime(file, modifiedTime);
+
+        assertNotEquals(version, repository.getVersion(HOST_ID));
+        assertTrue(repository.getCalendar(HOST_ID).isFree(start, start.plusDays(3)));
+    }
+
+    @Test
+    void shouldLeaveNoTempFileBehind() throws DataAccessException, IOException {
+        repository.add(makeReservation(LocalDate.of(2030, 1, 1), 3, "663", "600"));
+
+        try (Stream<Path> files = Files.list(directory.resolve("bin"))) {
+            assertTrue(files.noneMatch(f -> f.toString().endsWith(".tmp")));
+        }
+    }
+
+    @Test
+    void shouldReturnEmptyListForUnknownHost() throws DataAccessException {
+        assertEquals(0, repository.findById("unknown").size());
+    }
+
+    private Reservation makeReservation(LocalDate start, int nights, String guestId, String total) {
+        Reservation reservation = new Reservation();
+        Host host = new Host();
+        host.setId(HOST_ID);
+        reservation.setHost(host);
+        Guest guest = new Guest();
+        guest.setId(guestId);
+        reservation.setGuest(guest);
+        reservation.setStartDate(start);
+        reservation.setEndDate(start.plusDays(nights));
+        reservation.setTotal(new BigDecimal(total));
+        return reservation;
+    }
+}
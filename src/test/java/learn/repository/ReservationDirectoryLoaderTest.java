@@ -0,0 +1,83 @@
+package learn.repository;
+
+import learn.models.Reservation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationDirectoryLoaderTest {
+
+    private static final String SEED_FILE = "./data/reservations-seed-file.csv";
+    private static final int HOSTS = 20;
+
+    @TempDir
+    Path directory;
+
+    ReservationDirectoryLoader loader = new ReservationDirectoryLoader(4);
+
+    @BeforeEach
+    void setUp() throws IOException {
+        for (int i = 0; i < HOSTS; i++) {
+            Files.copy(Paths.get(SEED_FILE), directory.resolve("host-" + i + ".csv"));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        loader.close();
+    }
+
+    @Test
+    void shouldLoadEveryHostFile() throws DataAccessException {
+        ReservationDirectoryLoader.LoadResult result = loader.loadAll(directory.toString());
+
+        assertTrue(result.isSuccess());
+        assertEquals(HOSTS, result.getReservations().size());
+        List<Reservation> expected = new ReservationFileRepository(directory.toString(),
+                new ReservationToJSONRepositoryDouble()).findById("host-7");
+        List<Reservation> actual = result.getReservations().get("host-7");
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getReservationId(), actual.get(i).getReservationId());
+            assertEquals(expected.get(i).getStartDate(), actual.get(i).getStartDate());
+            assertEquals(expected.get(i).getTotal(), actual.get(i).getTotal());
+            assertEquals("host-7", actual.get(i).getHost().getId());
+        }
+    }
+
+    @Test
+    void shouldReportUnreadableFileAndLoadTheRest() throws IOException, DataAccessException {
+        Files.writeString(directory.resolve("host-3.csv"), "id,start_date,end_date,guest_id,total\nx,2022-01-01,2022-01-02,1,10\n");
+
+        ReservationDirectoryLoader.LoadResult result = loader.loadAll(directory.toString());
+
+        assertFalse(result.isSuccess());
+        assertEquals(HOSTS - 1, result.getReservations().size());
+        assertTrue(result.getErrors().containsKey("host-3"));
+        assertFalse(result.getReservations().containsKey("host-3"));
+    }
+
+    @Test
+    void shouldReturnNothingForMissingDirectory() throws DataAccessException {
+        ReservationDirectoryLoader.LoadResult result = loader.loadAll(directory.resolve("missing").toString());
+
+        assertTrue(result.isSuccess());
+        assertTrue(result.getReservations().isEmpty());
+    }
+
+    @Test
+    void shouldLoadOneHost() throws DataAccessException {
+        assertEquals(3, loader.load(directory.toString(), "host-0").size());
+        assertEquals(0, loader.load(directory.toString(), "nobody").size());
+    }
+}
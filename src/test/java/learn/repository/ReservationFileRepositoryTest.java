@@ -14,6 +14,7 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardCopyOption;
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
@@ -39,6 +40,8 @@ class ReservationFileRepositoryTest {
         Path testPath = Paths.get(TEST_FILE);
 
         Files.copy(seedPath, testPath, StandardCopyOption.REPLACE_EXISTING);
+        Files.deleteIfExists(Paths.get(repository.getSequencePath(testHostId)));
+        Files.deleteIfExists(Paths.get(repository.getSequencePath("Test Id")));
     }
 
     @Test
@@ -47,6 +50,23 @@ class ReservationFileRepositoryTest {
         assertEquals(3, actual.size());
     }
 
+    @Test
+    void shouldHandOverStaysAsFindByIdReadsThem() throws DataAccessException {
+        List<Reservation> expected = repository.findById(testHostId);
+        List<long[]> actual = new ArrayList<>();
+        repository.forEachStay(testHostId, (startDay, endDay, totalCents) ->
+                actual.add(new long[]{startDay, endDay, totalCents}));
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i).getStartDate().toEpochDay(), actual.get(i)[0]);
+            assertEquals(expected.get(i).getEndDate().toEpochDay(), actual.get(i)[1]);
+            assertEquals(expected.get(i).getTotal().movePointRight(2).longValueExact(), actual.get(i)[2]);
+        }
+
+        repository.forEachStay("Test", (startDay, endDay, totalCents) -> fail("unknown host has no stays"));
+    }
+
     @Test
     void shouldNotReturnAnyReservationsIfInvalid() throws DataAccessException {
         List<Reservation> actual = repository.findById("Test");
@@ -77,6 +97,96 @@ class ReservationFileRepositoryTest {
         assertEquals(all.size() + 1, actual.size());
     }
 
+    @Test
+    void shouldAppendWithNextIdAfterHighestExisting() throws DataAccessException {
+        Reservation reservation = repository.add(makeReservation(testHostId, GuestRepositoryDouble.GUEST.getId()));
+        assertEquals(4, reservation.getReservationId());
+
+        List<Reservation> actual = repository.findById(testHostId);
+        assertEquals(4, actual.size());
+        assertEquals(startDate, actual.get(3).getStartDate());
+    }
+
+    @Test
+    void shouldNotReuseIdAfterDelete() throws DataAccessException {
+        assertTrue(repository.deleteById(testHostId, 2));
+
+        Reservation reservation = repository.add(makeReservation(testHostId, GuestRepositoryDouble.GUEST.getId()));
+        assertEquals(4, reservation.getReservationId());
+    }
+
+    @Test
+    void shouldHandOutIncreasingIdsWithoutCollisions() throws DataAccessException {
+        ReservationFileRepository otherRepository =
+                new ReservationFileRepository(TEST_DIRECTORY_FOLDER, reservationToJSONRepository);
+
+        int first = repository.add(makeReservation(testHostId, GuestRepositoryDouble.GUEST.getId())).getReservationId();
+        int second = otherRepository.add(makeReservation(testHostId, GuestRepositoryDouble.GUEST.getId())).getReservationId();
+        int third = repository.add(makeReservation(testHostId, GuestRepositoryDouble.GUEST.getId())).getReservationId();
+
+        assertEquals(4, first);
+        assertEquals(5, third);
+        assertTrue(second > third);
+    }
+
+    @Test
+    void shouldAddAllWithConsecutiveIds() throws DataAccessException {
+        List<Reservation> added = repository.addAll(testHostId, List.of(
+                makeReservation(testHostId, GuestRepositoryDouble.GUEST.getId()),
+                makeReservation(testHostId, GuestRepositoryDouble.GUEST.getId()),
+                makeReservation(testHostId, GuestRepositoryDouble.GUEST.getId())));
+
+        assertEquals(4, added.get(0).getReservationId());
+        assertEquals(6, added.get(2).getReservationId());
+
+        List<Reservation> actual = repository.findById(testHostId);
+        assertEquals(6, actual.size());
+        assertEquals(6, actual.get(5).getReservationId());
+        assertEquals(7, repository.add(makeReservation(testHostId, GuestRepositoryDouble.GUEST.getId()))
+                .getReservationId());
+    }
+
+    @Test
+    void shouldNotLoseConcurrentBookingsForSameHost() throws Exception {
+        Thread[] writers = new Thread[4];
+        for (int t = 0; t < writers.length; t++) {
+            ReservationFileRepository writerRepository =
+                    new ReservationFileRepository(TEST_DIRECTORY_FOLDER, reservationToJSONRepository);
+            writers[t] = new Thread(() -> {
+                for (int i = 0; i < 25; i++) {
+                    try {
+                        writerRepository.add(makeReservation(testHostId, GuestRepositoryDouble.GUEST.getId()));
+                    } catch (DataAccessException ex) {
+                        fail(ex);
+                    }
+                }
+            });
+            writers[t].start();
+        }
+        for (Thread writer : writers) {
+            writer.join();
+        }
+
+        List<Reservation> all = repository.findById(testHostId);
+        assertEquals(103, all.size());
+        assertEquals(103, all.stream().mapToInt(Reservation::getReservationId).distinct().count());
+    }
+
+    @Test
+    void shouldStartNewHostAtOne() throws DataAccessException {
+        Reservation reservation = repository.add(makeReservation("Test Id", GuestRepositoryDouble.GUEST.getId()));
+        assertTrue(reservation.getReservationId() >= 1);
+    }
+
+    @Test
+    void shouldAppendWithSyncedWrites() throws DataAccessException {
+        ReservationFileRepository syncedRepository =
+                new ReservationFileRepository(TEST_DIRECTORY_FOLDER, reservationToJSONRepository, true);
+
+        assertNotNull(syncedRepository.add(makeReservation(testHostId, GuestRepositoryDouble.GUEST.getId())));
+        assertEquals(4, syncedRepository.findById(testHostId).size());
+    }
+
     @Test
     void shouldNotMakeReservationIfNull() throws DataAccessException {
         List<Reservation> all = repository.findById(testHostId);
@@ -137,6 +247,54 @@ class ReservationFileRepositoryTest {
         assertFalse(repository.deleteById(HostRepositoryDouble.HOST_ID, reservation.getReservationId()));
     }
 
+    @Test
+    void shouldKeepCalendarInStepWithWrites() throws DataAccessException {
+        LocalDate start = LocalDate.now().plusMonths(3);
+        OccupancyCalendar calendar = repository.getCalendar(testHostId);
+        assertTrue(calendar.isFree(start, start.plusDays(3)));
+
+        Reservation reservation = makeReservation(testHostId, GuestRepositoryDouble.GUEST.getId());
+        reservation.setStartDate(start);
+        reservation.setEndDate(start.plusDays(3));
+        repository.add(reservation);
+        assertFalse(repository.getCalendar(testHostId).isFree(start.plusDays(2), start.plusDays(4)));
+
+        reservation.setStartDate(start.plusDays(10));
+        reservation.setEndDate(start.plusDays(12));
+        assertTrue(repository.update(reservation));
+        assertTrue(repository.getCalendar(testHostId).isFree(start, start.plusDays(3)));
+        assertEquals(2, repository.getCalendar(testHostId).countBooked(start, start.plusDays(30)));
+
+        assertTrue(repository.deleteById(testHostId, reservation.getReservationId()));
+        assertEquals(0, repository.getCalendar(testHostId).countBooked(start, start.plusDays(30)));
+    }
+
+    @Test
+    void shouldRebuildCalendarWhenAnotherRepositoryWrites() throws DataAccessException {
+        ReservationFileRepository otherRepository =
+                new ReservationFileRepository(TEST_DIRECTORY_FOLDER, reservationToJSONRepository);
+        LocalDate start = LocalDate.now().plusMonths(3);
+        long version = repository.getVersion(testHostId);
+        assertTrue(repository.getCalendar(testHostId).isFree(start, start.plusDays(3)));
+
+        Reservation reservation = makeReservation(testHostId, GuestRepositoryDouble.GUEST.getId());
+        reservation.setStartDate(start);
+        reservation.setEndDate(start.plusDays(3));
+        otherRepository.add(reservation);
+        assertFalse(repository.getCalendar(testHostId).isFree(start, start.plusDays(3)));
+        assertNotEquals(version, repository.getVersion(testHostId));
+
+        //a write of its own books into the rebuilt calendar rather than a stale one
+        Reservation next = makeReservation(testHostId, GuestRepositoryDouble.GUEST.getId());
+        next.setStartDate(start.plusDays(5));
+        next.setEndDate(start.plusDays(6));
+        repository.add(next);
+        assertEquals(4, repository.getCalendar(testHostId).countBooked(start, start.plusDays(30)));
+
+        assertTrue(otherRepository.deleteById(testHostId, reservation.getReservationId()));
+        assertEquals(1, repository.getCalendar(testHostId).countBooked(start, start.plusDays(30)));
+    }
+
     //support method
     private Reservation makeReservation(String hostId, String guestId) {
         Reservation reservation = new Reservation();
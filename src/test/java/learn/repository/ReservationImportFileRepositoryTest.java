@@ -0,0 +1,73 @@
+package learn.repository;
+
+import learn.models.Reservation;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservationImportFileRepositoryTest {
+
+    private static final String HEADER = "host_email,guest_email,start_date,end_date\n";
+
+    ReservationImportFileRepository repository = new ReservationImportFileRepository();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldReadHeaderOnlyFileAsEmpty() throws IOException, DataAccessException {
+        assertTrue(repository.findAll(write(HEADER)).isEmpty());
+    }
+
+    @Test
+    void shouldSkipBlankLines() throws IOException, DataAccessException {
+        List<Reservation> all = repository.findAll(write(HEADER
+                + "host@test.com,guest@test.com,2030-01-01,2030-01-03\n"
+                + "\n"
+                + " host@test.com , guest@test.com ,2030-02-01,2030-02-03\n"));
+
+        assertEquals(2, all.size());
+        assertEquals("host@test.com", all.get(1).getHost().getEmail());
+        assertEquals("guest@test.com", all.get(1).getGuest().getEmail());
+        assertEquals(LocalDate.of(2030, 2, 1), all.get(1).getStartDate());
+        assertEquals(LocalDate.of(2030, 2, 3), all.get(1).getEndDate());
+    }
+
+    @Test
+    void shouldKeepShortRowAsEmptyReservation() throws IOException, DataAccessException {
+        List<Reservation> all = repository.findAll(write(HEADER + "host@test.com,2030-01-01\n"));
+
+        assertEquals(1, all.size());
+        assertNull(all.get(0).getHost());
+        assertNull(all.get(0).getGuest());
+        assertNull(all.get(0).getStartDate());
+    }
+
+    @Test
+    void shouldLeaveUnparseableDateNull() throws IOException, DataAccessException {
+        List<Reservation> all = repository.findAll(write(HEADER
+                + "host@test.com,guest@test.com,01/01/2030,2030-01-03\n"));
+
+        assertEquals(1, all.size());
+        assertNull(all.get(0).getStartDate());
+        assertEquals(LocalDate.of(2030, 1, 3), all.get(0).getEndDate());
+    }
+
+    @Test
+    void shouldNotReadMissingFile() {
+        assertThrows(DataAccessException.class, () -> repository.findAll(directory.resolve("missing.csv").toString()));
+    }
+
+    private String write(String contents) throws IOException {
+        Path file = directory.resolve("import.csv");
+        Files.writeString(file, contents);
+        return file.toString();
+    }
+}
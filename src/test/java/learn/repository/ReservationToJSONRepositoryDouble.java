@@ -10,6 +10,11 @@ public class ReservationToJSONRepositoryDouble implements ReservationToJSONRepos
 
     }
 
+    @Override
+    public void writeHostToJSON(String hostId) throws DataAccessException {
+
+    }
+
     @Override
     public String getFileNameNoExtension(String fileName) throws DataAccessException {
         return null;
@@ -1,5 +1,7 @@
 package learn.repository;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import learn.repository.convertToJSON.JSONMapper;
 import learn.repository.convertToJSON.ReservationToJSONFileRepository;
 import learn.repository.convertToJSON.ReservationToJSONRepository;
 import org.junit.jupiter.api.BeforeEach;
@@ -34,6 +36,113 @@ public class ReservationToJSONRepositoryTest {
         repository.writeToJSON(new File(ReservationFileRepositoryTest.TEST_DIRECTORY_FOLDER));
     }
 
+    @Test
+    void shouldPatchOneHostIntoExistingExport() throws DataAccessException, IOException {
+        Path hostFile = Paths.get(ReservationFileRepositoryTest.TEST_DIRECTORY_FOLDER,
+                "2e72f86c-b8fe-4265-b4f1-304dea8762db.csv");
+        String hostCsv = Files.readString(hostFile);
+        try {
+            repository.writeToJSON(new File(ReservationFileRepositoryTest.TEST_DIRECTORY_FOLDER));
+            JsonNode before = JSONMapper.getMapper().readTree(Paths.get(TEST_JSON_FILE).toFile());
+
+            Files.writeString(hostFile, hostCsv + System.lineSeparator() + "4,2031-01-01,2031-01-03,663,500");
+            repository.writeHostToJSON("2e72f86c-b8fe-4265-b4f1-304dea8762db");
+            JsonNode after = JSONMapper.getMapper().readTree(Paths.get(TEST_JSON_FILE).toFile());
+
+            //same hosts in the same slots, and only the written host's slot changed
+            assertEquals(3, after.size());
+            int changed = 0;
+            for (int i = 1; i <= 3; i++) {
+                String field = "hostReservations" + i;
+                if (!before.get(field).equals(after.get(field))) {
+                    changed++;
+                    assertEquals(before.get(field).size() + 1, after.get(field).size());
+                    assertTrue(after.get(field).toString().contains("2031-01-01"));
+                }
+            }
+            assertEquals(1, changed);
+        } finally {
+            Files.writeString(hostFile, hostCsv);
+        }
+    }
+
+    @Test
+    void shouldMoveLaterHostsWhenOneOutgrowsItsSlot() throws DataAccessException, IOException {
+        Path hostFile = Paths.get(ReservationFileRepositoryTest.TEST_DIRECTORY_FOLDER,
+                "2e72f86c-b8fe-4265-b4f1-304dea8762db.csv");
+        String hostCsv = Files.readString(hostFile);
+        try {
+            repository.writeToJSON(new File(ReservationFileRepositoryTest.TEST_DIRECTORY_FOLDER));
+            JsonNode before = JSONMapper.getMapper().readTree(Paths.get(TEST_JSON_FILE).toFile());
+
+            StringBuilder rows = new StringBuilder(hostCsv);
+            for (int i = 0; i < 20; i++) {
+                rows.append(System.lineSeparator()).append(10 + i).append(",2031-02-").append(10 + i)
+                        .append(",2031-02-").append(11 + i).append(",663,500");
+            }
+            Files.writeString(hostFile, rows.toString());
+            repository.writeHostToJSON("2e72f86c-b8fe-4265-b4f1-304dea8762db");
+            //a second write goes to the slot where the first one moved it
+            repository.writeHostToJSON("2e72f86c-b8fe-4265-b4f1-304dea8762db");
+            JsonNode after = JSONMapper.getMapper().readTree(Paths.get(TEST_JSON_FILE).toFile());
+
+            assertEquals(3, after.size());
+            int changed = 0;
+            for (int i = 1; i <= 3; i++) {
+                String field = "hostReservations" + i;
+                if (!before.get(field).equals(after.get(field))) {
+                    changed++;
+                    assertEquals(before.get(field).size() + 20, after.get(field).size());
+                }
+            }
+            assertEquals(1, changed);
+        } finally {
+            Files.writeString(hostFile, hostCsv);
+        }
+    }
+
+    @Test
+    void shouldRewriteExportChangedBehindItsBack() throws DataAccessException, IOException {
+        repository.writeToJSON(new File(ReservationFileRepositoryTest.TEST_DIRECTORY_FOLDER));
+        Files.writeString(Paths.get(TEST_JSON_FILE), "{}");
+
+        repository.writeHostToJSON("2e72f86c-b8fe-4265-b4f1-304dea8762db");
+        JsonNode actual = JSONMapper.getMapper().readTree(Paths.get(TEST_JSON_FILE).toFile());
+
+        assertEquals(3, actual.size());
+    }
+
+    @Test
+    void shouldIndentHostArraysInsideTheObject() throws DataAccessException, IOException {
+        repository.writeToJSON(new File(ReservationFileRepositoryTest.TEST_DIRECTORY_FOLDER));
+        String actual = Files.readString(Paths.get(TEST_JSON_FILE));
+
+        assertTrue(actual.startsWith("{\n  \"hostReservations1\" : [ {\n    \"reservationId\""));
+        assertTrue(actual.contains("\n  } ]"));
+        assertTrue(actual.endsWith("\n}"));
+        assertFalse(actual.contains("\n} ]"));
+    }
+
+    @Test
+    void shouldWriteDatesAsIsoStrings() throws DataAccessException, IOException {
+        repository.writeToJSON(new File(ReservationFileRepositoryTest.TEST_DIRECTORY_FOLDER));
+        String actual = Files.readString(Paths.get(TEST_JSON_FILE));
+
+        assertTrue(actual.contains("\"startDate\" : \"20"));
+        assertFalse(actual.contains("dayOfWeek"));
+    }
+
+    @Test
+    void shouldWriteCompactJSON() throws DataAccessException, IOException {
+        ReservationToJSONRepository compactRepository = new ReservationToJSONFileRepository(
+                TEST_JSON_FILE, ReservationFileRepositoryTest.TEST_DIRECTORY_FOLDER, false);
+        compactRepository.writeToJSON(new File(ReservationFileRepositoryTest.TEST_DIRECTORY_FOLDER));
+        String actual = Files.readString(Paths.get(TEST_JSON_FILE));
+
+        assertFalse(actual.contains("\n"));
+        assertTrue(actual.startsWith("{\"hostReservations1\":["));
+    }
+
     @Test
     void shouldNotWriteAllToJSONFileIfNullDirectory() throws DataAccessException {
         repository.writeToJSON(null);
@@ -0,0 +1,169 @@
+package learn.ui;
+
+import learn.domain.GuestService;
+import learn.domain.HostService;
+import learn.domain.ReservationService;
+import learn.models.Reservation;
+import learn.repository.DataAccessException;
+import learn.repository.GuestRepositoryDouble;
+import learn.repository.HostRepositoryDouble;
+import learn.repository.ReservationRepositoryDouble;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ApiServerTest {
+
+    private static final String HOST_EMAIL = HostRepositoryDouble.HOST.getEmail();
+    private static final String GUEST_EMAIL = GuestRepositoryDouble.GUEST.getEmail();
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final LocalDate start = LocalDate.now().plusMonths(2);
+    private boolean failReads;
+    private ApiServer server;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        //numbers and keeps bookings like the file repository, and can be told to fail unexpectedly
+        ReservationRepositoryDouble reservationRepository = new ReservationRepositoryDouble() {
+            private final List<Reservation> added = new ArrayList<>();
+
+            @Override
+            public List<Reservation> findById(String id) throws DataAccessException {
+                if (failReads) {
+                    throw new IllegalStateException("broken repository");
+                }
+                List<Reservation> all = super.findById(id);
+                added.stream().filter(r -> r.getHost().getId().equals(id)).forEach(all::add);
+                return all;
+            }
+
+            @Override
+            public Reservation add(Reservation reservation) {
+                reservation.setReservationId(99);
+                added.add(reservation);
+                return reservation;
+            }
+
+            @Override
+            public boolean deleteById(String hostId, int reservationId) {
+                return added.removeIf(r -> r.getReservationId() == reservationId);
+            }
+        };
+        ApiController controller = new ApiController(
+                new ReservationService(reservationRepository, new GuestRepositoryDouble(), new HostRepositoryDouble()),
+                new GuestService(new GuestRepositoryDouble()),
+                new HostService(new HostRepositoryDouble()));
+
+        server = new ApiServer(controller);
+        server.setPort(0);
+        server.setWorkerThreads(2);
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void shouldFindHostAndGuestByEmail() throws Exception {
+        HttpResponse<String> host = send("GET", "/hosts?email=" + HOST_EMAIL, null);
+        assertEquals(200, host.statusCode());
+        assertTrue(host.body().contains(HostRepositoryDouble.HOST_ID));
+
+        HttpResponse<String> guest = send("GET", "/guests?email=" + GUEST_EMAIL, null);
+        assertEquals(200, guest.statusCode());
+        assertTrue(guest.body().contains(GUEST_EMAIL));
+
+        assertEquals(404, send("GET", "/hosts?email=nobody@test.com", null).statusCode());
+    }
+
+    @Test
+    void shouldAnswerUnknownPathWith404() throws Exception {
+        HttpResponse<String> response = send("GET", "/nowhere", null);
+        assertEquals(404, response.statusCode());
+        assertTrue(response.body().contains("Not found: /nowhere"));
+    }
+
+    @Test
+    void shouldAnswerUnsupportedMethodWith405() throws Exception {
+        HttpResponse<String> quote = send("GET", "/reservations/quote", null);
+        assertEquals(405, quote.statusCode());
+        assertEquals("POST", quote.headers().firstValue("Allow").orElse(null));
+
+        HttpResponse<String> availability = send("DELETE", "/availability", null);
+        assertEquals(405, availability.statusCode());
+        assertEquals("GET", availability.headers().firstValue("Allow").orElse(null));
+
+        assertEquals(405, send("PATCH", "/hosts", "{}").statusCode());
+    }
+
+    @Test
+    void shouldAnswerBadBodyWith400() throws Exception {
+        HttpResponse<String> notJson = send("POST", "/hosts", "not json");
+        assertEquals(400, notJson.statusCode());
+        assertTrue(notJson.body().contains("Invalid request"));
+
+        HttpResponse<String> missingDate = send("POST", "/reservations",
+                "{\"hostEmail\":\"" + HOST_EMAIL + "\",\"guestEmail\":\"" + GUEST_EMAIL + "\"}");
+        assertEquals(400, missingDate.statusCode());
+        assertTrue(missingDate.body().contains("startDate is required."));
+    }
+
+    @Test
+    void shouldAnswerUnexpectedFailureWith500() throws Exception {
+        failReads = true;
+        HttpResponse<String> response = send("GET", "/reservations?hostEmail=" + HOST_EMAIL, null);
+        assertEquals(500, response.statusCode());
+        assertTrue(response.body().contains("broken repository"));
+    }
+
+    @Test
+    void shouldQuoteBookFindAndCancelReservation() throws Exception {
+        String booking = "{\"hostEmail\":\"" + HOST_EMAIL + "\",\"guestEmail\":\"" + GUEST_EMAIL
+                + "\",\"startDate\":\"" + start + "\",\"endDate\":\"" + start.plusDays(3) + "\"}";
+
+        assertEquals(200, send("POST", "/reservations/quote", booking).statusCode());
+
+        HttpResponse<String> added = send("POST", "/reservations", booking);
+        assertEquals(201, added.statusCode());
+        assertTrue(added.body().contains("99"));
+
+        HttpResponse<String> found = send("GET", "/reservations?hostEmail=" + HOST_EMAIL, null);
+        assertEquals(200, found.statusCode());
+        assertTrue(found.body().contains(start.toString()));
+
+        HttpResponse<String> available = send("GET", "/availability?state=ID&startDate=" + start.plusDays(1)
+                + "&endDate=" + start.plusDays(2), null);
+        assertEquals(200, available.statusCode());
+        assertFalse(available.body().contains(HostRepositoryDouble.HOST_ID));
+
+        assertEquals(400, send("POST", "/reservations", booking).statusCode());
+
+        assertEquals(200, send("DELETE", "/reservations?hostEmail=" + HOST_EMAIL + "&reservationId=99", null)
+                .statusCode());
+        assertEquals(404, send("DELETE", "/reservations?hostEmail=" + HOST_EMAIL + "&reservationId=99", null)
+                .statusCode());
+    }
+
+    private HttpResponse<String> send(String method, String path, String body)
+            throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + server.getPort() + path))
+                .method(method, body == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return client.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,43 @@
+package learn.ui;
+
+import learn.repository.DataAccessException;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ViewTest {
+
+    private final List<String> printed = new ArrayList<>();
+    private final View view = new View(new ConsoleIO() {
+        @Override
+        public void println(String message) {
+            printed.add(message);
+        }
+
+        @Override
+        public void printf(String format, Object... values) {
+        }
+
+        @Override
+        public int readRequiredInt(String prompt, int min, int max) {
+            return 0;
+        }
+    });
+
+    @Test
+    void shouldShowExportFailureBeforeNextMenuOnlyOnce() {
+        view.failed("hosts", new DataAccessException("disk full"));
+        assertTrue(printed.isEmpty());
+
+        view.selectMainMenuOption();
+        assertTrue(printed.contains("JSON export of hosts failed: disk full"));
+        assertTrue(printed.indexOf("JSON export of hosts failed: disk full") < printed.indexOf("Main Menu"));
+
+        printed.clear();
+        view.selectMainMenuOption();
+        assertFalse(printed.contains("JSON export of hosts failed: disk full"));
+    }
+}